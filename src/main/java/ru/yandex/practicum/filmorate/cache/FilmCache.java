@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.entity.Director;
+import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.Genre;
+import ru.yandex.practicum.filmorate.entity.Mpa;
+import ru.yandex.practicum.filmorate.index.IndexTransactions;
+import ru.yandex.practicum.filmorate.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.FILM_CACHE_SIZE;
+
+/**
+ * Кэш записей о фильмах по их ID, работающий в режиме сквозного чтения: при промахе фильм читается
+ * из репозитория и запоминается. Размер кэша ограничен, при переполнении вытесняется фильм,
+ * к которому дольше всего не обращались (LRU). Количество лайков в кэше не хранится и при каждом
+ * чтении берется из индекса популярности, поэтому лайки не сбрасывают кэш.
+ * Наружу отдаются копии объектов, поэтому изменение полученных фильмов не портит кэш.
+ */
+@Slf4j
+@Component
+public class FilmCache {
+    private final FilmRepository films;
+    private final PopularFilmsIndex popularFilms;
+    private final int capacity;
+    private final Map<Integer, Film> filmsById;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    /**
+     * Счетчик сбросов кэша. Фильм, прочитанный из репозитория, не кладется в кэш, если за время чтения
+     * кэш сбрасывался: прочитанная запись могла устареть.
+     */
+    private long generation;
+
+    @Autowired
+    public FilmCache(FilmRepository films, PopularFilmsIndex popularFilms) {
+        this(films, popularFilms, FILM_CACHE_SIZE);
+    }
+
+    /**
+     * Конструктор кэша заданного размера.
+     *
+     * @param films        репозиторий фильмов
+     * @param popularFilms индекс популярности, из которого берется количество лайков
+     * @param capacity     максимальное количество фильмов в кэше
+     */
+    public FilmCache(FilmRepository films, PopularFilmsIndex popularFilms, int capacity) {
+        this.films = films;
+        this.popularFilms = popularFilms;
+        this.capacity = capacity;
+        this.filmsById = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Film> eldest) {
+                if (size() > FilmCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Метод возвращает фильм по его ID из кэша, а при его отсутствии в кэше - из репозитория.
+     *
+     * @param filmId ID фильма
+     * @return фильм, либо пустое значение, если фильм не найден
+     */
+    public Optional<Film> getFilm(int filmId) {
+        Film film;
+        long loadGeneration;
+        synchronized (filmsById) {
+            film = filmsById.get(filmId);
+            loadGeneration = generation;
+        }
+        if (film != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            var loaded = films.getFilm(filmId);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            film = copy(loaded.get());
+            synchronized (filmsById) {
+                if (loadGeneration == generation) {
+                    filmsById.putIfAbsent(filmId, film);
+                }
+            }
+        }
+        var result = copy(film);
+        result.setRate(popularFilms.getLikes(filmId));
+        return Optional.of(result);
+    }
+
+    /**
+     * Метод удаляет фильм из кэша после его изменения или удаления. Если изменение выполнялось
+     * внутри транзакции, фильм удаляется из кэша повторно при ее откате.
+     *
+     * @param filmId ID измененного фильма
+     */
+    public void invalidate(int filmId) {
+        remove(filmId);
+        IndexTransactions.onRollback(() -> remove(filmId));
+    }
+
+    /**
+     * Метод очищает кэш, например, после переименования или удаления режиссера,
+     * который может быть указан у любого из фильмов.
+     */
+    public void invalidateAll() {
+        clear();
+        IndexTransactions.onRollback(this::clear);
+    }
+
+    /**
+     * Метод возвращает статистику работы кэша.
+     *
+     * @return статистика кэша
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (filmsById) {
+            size = filmsById.size();
+        }
+        return new Stats(size, capacity, hits.get(), misses.get(), evictions.get());
+    }
+
+    private void remove(int filmId) {
+        synchronized (filmsById) {
+            generation++;
+            filmsById.remove(filmId);
+        }
+    }
+
+    private void clear() {
+        synchronized (filmsById) {
+            generation++;
+            filmsById.clear();
+        }
+        log.info("Кэш фильмов очищен");
+    }
+
+    private Film copy(Film film) {
+        var mpa = film.getMpa() == null ? null : new Mpa(film.getMpa().getId(), film.getMpa().getName());
+        var genres = film.getGenres() == null ? null : film.getGenres().stream()
+                .map(genre -> new Genre(genre.getId(), genre.getName()))
+                .toList();
+        TreeSet<Director> directors = null;
+        if (film.getDirectors() != null) {
+            directors = new TreeSet<>(Director::compareTo);
+            for (Director director : film.getDirectors()) {
+                directors.add(new Director(director.getId(), director.getName()));
+            }
+        }
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getRate(), mpa, genres, directors);
+    }
+
+    /**
+     * Статистика работы кэша фильмов.
+     *
+     * @param size      текущее количество фильмов в кэше
+     * @param capacity  максимальное количество фильмов в кэше
+     * @param hits      количество чтений, обслуженных кэшем
+     * @param misses    количество чтений, потребовавших обращения к репозиторию
+     * @param evictions количество фильмов, вытесненных из кэша при переполнении
+     */
+    public record Stats(int size, int capacity, long hits, long misses, long evictions) {
+    }
+}
@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.index.IndexTransactions;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.index.UserLikesIndex;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.RECOMMENDATION_REFRESH_BATCH_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.RECOMMENDATION_REFRESH_DELAY_MS;
+
+/**
+ * Хранилище заранее рассчитанных рекомендаций фильмов для пользователей.
+ * Рекомендации рассчитываются по индексу лайков фоновой задачей и отдаются вместе с временем расчета.
+ * Изменение лайков пользователя помечает устаревшими рекомендации его самого и всех пользователей,
+ * у которых с ним есть общие фильмы: только для них могла измениться доля общих фильмов.
+ * Устаревшие рекомендации отдаются до пересчета, рекомендации пользователя, для которого
+ * расчета еще не было, считаются сразу при запросе. Пустые рекомендации пользователей без лайков не хранятся.
+ * В приближенном режиме похожие пользователи ищутся только среди кандидатов из индекса MinHash.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecommendationCache {
+    private final UserLikesIndex userLikes;
+    private final MinHashIndex minHash;
+    private static final int[] NO_FILMS = new int[0];
+    private final Map<Integer, Recommendations> recommendationsByUser = new ConcurrentHashMap<>();
+    private final Set<Integer> staleUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Метод ставит в очередь на фоновый расчет всех пользователей, у которых есть лайки.
+     */
+    @PostConstruct
+    public void load() {
+        for (int userId : userLikes.getUsers()) {
+            staleUsers.add(userId);
+        }
+        log.info("В очередь на расчет рекомендаций поставлено пользователей: {}", staleUsers.size());
+    }
+
+    /**
+     * Метод возвращает рекомендации пользователя из хранилища, а если их расчета еще не было - рассчитывает их.
+     *
+     * @param userId ID пользователя
+     * @return ID рекомендуемых фильмов и время их расчета
+     */
+    public Recommendations getRecommendations(int userId) {
+        var stored = recommendationsByUser.get(userId);
+        return stored != null ? stored : compute(userId);
+    }
+
+    /**
+     * Метод возвращает количество пользователей, рекомендации которых хранятся.
+     *
+     * @return количество пользователей с рассчитанными рекомендациями
+     */
+    public int size() {
+        return recommendationsByUser.size();
+    }
+
+    /**
+     * Метод помечает устаревшими рекомендации после изменения лайка пользователя.
+     * Вызывается после изменения индекса лайков.
+     *
+     * @param userId ID пользователя, изменившего лайк
+     * @param filmId ID фильма
+     */
+    public void likeChanged(int userId, int filmId) {
+        Runnable markStale = () -> {
+            staleUsers.add(userId);
+            minHash.markChanged(userId);
+            markStale(userLikes.getNeighbours(userId));
+            markStale(userLikes.getLikingUsers(filmId));
+        };
+        markStale.run();
+        IndexTransactions.onRollback(markStale);
+    }
+
+    /**
+     * Метод удаляет рекомендации пользователя и помечает устаревшими рекомендации его соседей.
+     * Вызывается до удаления пользователя из индекса лайков.
+     *
+     * @param userId ID удаляемого пользователя
+     */
+    public void removeUser(int userId) {
+        int[] neighbours = userLikes.getNeighbours(userId);
+        recommendationsByUser.remove(userId);
+        staleUsers.remove(userId);
+        minHash.markChanged(userId);
+        markStale(neighbours);
+        IndexTransactions.onRollback(() -> {
+            staleUsers.add(userId);
+            minHash.markChanged(userId);
+            markStale(neighbours);
+        });
+    }
+
+    /**
+     * Метод помечает устаревшими рекомендации после удаления фильма: рекомендации поставивших ему лайк
+     * пользователей и их соседей, у которых изменились доли общих фильмов с ними, а также рекомендации,
+     * в которые входит удаляемый фильм. Вызывается до удаления фильма из индекса лайков.
+     *
+     * @param filmId ID удаляемого фильма
+     */
+    public void removeFilm(int filmId) {
+        int[] likingUsers = userLikes.getLikingUsers(filmId);
+        int[][] neighbours = new int[likingUsers.length][];
+        for (int i = 0; i < likingUsers.length; i++) {
+            neighbours[i] = userLikes.getNeighbours(likingUsers[i]);
+        }
+        int[] recommendedTo = recommendationsByUser.entrySet().stream()
+                .filter(entry -> Arrays.binarySearch(entry.getValue().filmIds(), filmId) >= 0)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+        Runnable markStale = () -> {
+            for (int userId : likingUsers) {
+                minHash.markChanged(userId);
+            }
+            markStale(likingUsers);
+            for (int[] userIds : neighbours) {
+                markStale(userIds);
+            }
+            markStale(recommendedTo);
+        };
+        markStale.run();
+        IndexTransactions.onRollback(markStale);
+    }
+
+    /**
+     * Метод пересчитывает устаревшие рекомендации. Выполняется в фоне с фиксированной паузой,
+     * за один запуск пересчитывается не больше заданного количества пользователей.
+     *
+     * @return количество пересчитанных пользователей
+     */
+    @Scheduled(fixedDelay = RECOMMENDATION_REFRESH_DELAY_MS)
+    public int refreshStale() {
+        int refreshed = 0;
+        Iterator<Integer> iterator = staleUsers.iterator();
+        while (iterator.hasNext() && refreshed < RECOMMENDATION_REFRESH_BATCH_SIZE) {
+            int userId = iterator.next();
+            iterator.remove();
+            compute(userId);
+            refreshed++;
+        }
+        if (refreshed > 0) {
+            log.debug("Пересчитаны рекомендации пользователей: {}, в очереди осталось: {}",
+                    refreshed, staleUsers.size());
+        }
+        return refreshed;
+    }
+
+    private Recommendations compute(int userId) {
+        if (userLikes.getLikedFilms(userId).length == 0) {
+            recommendationsByUser.remove(userId);
+            return new Recommendations(NO_FILMS, Instant.now());
+        }
+        int[] filmIds = minHash.isEnabled()
+                ? userLikes.getRecommendedFilms(userId, minHash.getCandidates(userId))
+                : userLikes.getRecommendedFilms(userId);
+        var recommendations = new Recommendations(filmIds, Instant.now());
+        recommendationsByUser.put(userId, recommendations);
+        return recommendations;
+    }
+
+    private void markStale(int[] userIds) {
+        for (int userId : userIds) {
+            staleUsers.add(userId);
+        }
+    }
+
+    /**
+     * Рассчитанные рекомендации пользователя.
+     *
+     * @param filmIds    отсортированный массив ID рекомендуемых фильмов; изменять его нельзя
+     * @param computedAt время расчета
+     */
+    public record Recommendations(int[] filmIds, Instant computedAt) {
+    }
+}
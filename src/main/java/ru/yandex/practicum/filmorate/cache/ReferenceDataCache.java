@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.entity.Director;
+import ru.yandex.practicum.filmorate.entity.Genre;
+import ru.yandex.practicum.filmorate.entity.Mpa;
+import ru.yandex.practicum.filmorate.index.IndexTransactions;
+import ru.yandex.practicum.filmorate.repository.DirectorRepository;
+import ru.yandex.practicum.filmorate.repository.UtilRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Кэш справочных данных: жанров, MPA-рейтингов и режиссеров.
+ * Жанры и MPA-рейтинги не меняются во время работы приложения и хранятся в массивах, индексированных по ID.
+ * Режиссеры хранятся в хеш-таблице по ID; при любом изменении режиссеров кэш режиссеров сбрасывается
+ * и перечитывается из БД при следующем обращении. Кэш заполняется при старте приложения.
+ * Наружу отдаются копии объектов, поэтому изменение полученных сущностей не портит кэш.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+    private final UtilRepository utils;
+    private final DirectorRepository directorRepository;
+    private volatile Genre[] genresById;
+    private volatile Mpa[] mpaById;
+    private volatile Map<Integer, Director> directorsById;
+
+    /**
+     * Метод заполняет кэш данными из БД.
+     */
+    @PostConstruct
+    public void warmUp() {
+        log.info("Заполнение кэша справочных данных");
+        genresById = toGenreArray(utils.getAllGenres());
+        mpaById = toMpaArray(utils.getAllMpa());
+        directorsById = loadDirectors();
+    }
+
+    /**
+     * Метод возвращает жанр по его ID.
+     *
+     * @param genreId ID жанра
+     * @return жанр, либо пустое значение, если жанр неизвестен
+     */
+    public Optional<Genre> getGenre(int genreId) {
+        var genres = genresById;
+        if (genreId <= 0 || genreId >= genres.length || genres[genreId] == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Genre(genreId, genres[genreId].getName()));
+    }
+
+    /**
+     * Метод возвращает все жанры в порядке их ID.
+     *
+     * @return список всех жанров
+     */
+    public List<Genre> getAllGenres() {
+        var genres = genresById;
+        return Arrays.stream(genres)
+                .filter(Objects::nonNull)
+                .map(genre -> new Genre(genre.getId(), genre.getName()))
+                .toList();
+    }
+
+    /**
+     * Метод возвращает MPA-рейтинг по его ID.
+     *
+     * @param mpaId ID рейтинга
+     * @return MPA-рейтинг, либо пустое значение, если рейтинг неизвестен
+     */
+    public Optional<Mpa> getMpa(int mpaId) {
+        var mpa = mpaById;
+        if (mpaId <= 0 || mpaId >= mpa.length || mpa[mpaId] == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Mpa(mpaId, mpa[mpaId].getName()));
+    }
+
+    /**
+     * Метод возвращает все MPA-рейтинги в порядке их ID.
+     *
+     * @return список всех MPA-рейтингов
+     */
+    public List<Mpa> getAllMpa() {
+        var mpa = mpaById;
+        return Arrays.stream(mpa)
+                .filter(Objects::nonNull)
+                .map(rating -> new Mpa(rating.getId(), rating.getName()))
+                .toList();
+    }
+
+    /**
+     * Метод возвращает режиссера по его ID.
+     *
+     * @param directorId ID режиссера
+     * @return режиссер, либо пустое значение, если режиссер неизвестен
+     */
+    public Optional<Director> getDirector(int directorId) {
+        return Optional.ofNullable(getDirectors().get(directorId))
+                .map(director -> new Director(director.getId(), director.getName()));
+    }
+
+    /**
+     * Метод возвращает всех режиссеров в порядке их ID.
+     *
+     * @return список всех режиссеров
+     */
+    public List<Director> getAllDirectors() {
+        return getDirectors().values().stream()
+                .map(director -> new Director(director.getId(), director.getName()))
+                .toList();
+    }
+
+    /**
+     * Метод сбрасывает кэш режиссеров после их изменения. Если изменение выполнялось внутри транзакции,
+     * кэш сбрасывается повторно при ее откате, чтобы не хранить неподтвержденные данные.
+     */
+    public synchronized void invalidateDirectors() {
+        directorsById = null;
+        IndexTransactions.onRollback(this::dropDirectors);
+    }
+
+    private synchronized void dropDirectors() {
+        directorsById = null;
+    }
+
+    private Map<Integer, Director> getDirectors() {
+        var directors = directorsById;
+        if (directors == null) {
+            synchronized (this) {
+                directors = directorsById;
+                if (directors == null) {
+                    directors = loadDirectors();
+                    directorsById = directors;
+                }
+            }
+        }
+        return directors;
+    }
+
+    private Map<Integer, Director> loadDirectors() {
+        Collection<Director> allDirectors = directorRepository.findAll();
+        Map<Integer, Director> directors = new LinkedHashMap<>();
+        allDirectors.forEach(director -> directors.put(director.getId(), director));
+        log.info("В кэш загружено режиссеров: {}", directors.size());
+        return Collections.unmodifiableMap(directors);
+    }
+
+    private Genre[] toGenreArray(List<Genre> genres) {
+        int maxId = genres.stream().mapToInt(Genre::getId).max().orElse(0);
+        var array = new Genre[maxId + 1];
+        genres.forEach(genre -> array[genre.getId()] = genre);
+        log.info("В кэш загружено жанров: {}", genres.size());
+        return array;
+    }
+
+    private Mpa[] toMpaArray(List<Mpa> allMpa) {
+        int maxId = allMpa.stream().mapToInt(Mpa::getId).max().orElse(0);
+        var array = new Mpa[maxId + 1];
+        allMpa.forEach(mpa -> array[mpa.getId()] = mpa);
+        log.info("В кэш загружено MPA-рейтингов: {}", allMpa.size());
+        return array;
+    }
+}
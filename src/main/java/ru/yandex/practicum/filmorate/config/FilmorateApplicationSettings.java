@@ -12,6 +12,28 @@ public class FilmorateApplicationSettings {
     public static final int MAX_DESCRIPTION_LENGTH = 200;
     public static final int MAX_AGE = 130;
     public static final int DEFAULT_MPA_RATING = 1;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int STREAM_FETCH_SIZE = 500;
+    public static final int FILM_CACHE_SIZE = 10_000;
+    public static final int DEFAULT_IMPORT_CHUNK_SIZE = 1000;
+    public static final int MAX_IMPORT_CHUNK_SIZE = 10_000;
+    public static final int MAX_IMPORT_ERRORS = 1000;
+    public static final int MAX_LIKE_BATCH_SIZE = 10_000;
+    public static final long RECOMMENDATION_REFRESH_DELAY_MS = 1000;
+    public static final int RECOMMENDATION_REFRESH_BATCH_SIZE = 10_000;
+    public static final int DEFAULT_MINHASH_BANDS = 32;
+    public static final int DEFAULT_MINHASH_ROWS = 2;
+    public static final int DEFAULT_EVENT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_EVENT_BATCH_SIZE = 500;
+    public static final long DEFAULT_EVENT_FLUSH_INTERVAL_MS = 200;
+    public static final long EVENT_SHUTDOWN_TIMEOUT_MS = 10_000;
+    public static final int DEFAULT_SUGGESTIONS_SIZE = 10;
+    public static final int DEFAULT_SUGGESTION_HUB_DEGREE = 10_000;
+    public static final int DEFAULT_FRIEND_PATH_MAX_DEPTH = 6;
+    public static final int DEFAULT_FRIEND_PATH_MAX_VISITED = 100_000;
+    public static final int DEFAULT_EVENT_RETENTION_BATCH_SIZE = 1000;
+    public static final long DEFAULT_EVENT_RETENTION_INTERVAL_MS = 60_000;
 
     private FilmorateApplicationSettings() {
     }
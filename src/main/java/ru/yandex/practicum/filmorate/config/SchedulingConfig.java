@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включение фоновых задач приложения, например, пересчета устаревших рекомендаций.
+ * Вынесено из класса приложения, чтобы срезы контекста в тестах не запускали фоновые задачи.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.service.BaseEventService;
+import ru.yandex.practicum.filmorate.service.BaseFilmService;
+import ru.yandex.practicum.filmorate.service.EventCompactor;
+import ru.yandex.practicum.filmorate.service.EventWriter;
+
+/**
+ * Контроллер обработки служебных REST-запросов для обслуживания фильмотеки.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    /**
+     * Подключение сервиса работы с фильмами.
+     */
+    private final BaseFilmService filmsService;
+    /**
+     * Подключение сервиса работы с событиями.
+     */
+    private final BaseEventService eventService;
+    /**
+     * Потоковая запись JSON-массивов в ответ.
+     */
+    private final JsonArrayStreamer jsonArrayStreamer;
+
+    /**
+     * Endpoint обрабатывает запрос на пересчет счетчиков лайков фильмов по записям о лайках.
+     *
+     * @return количество фильмов, счетчик лайков которых был исправлен
+     */
+    @PutMapping("/films/likes/rebuild")
+    public int rebuildLikeCounters() {
+        log.info("Запрос ==> PUT пересчитать счетчики лайков фильмов");
+        int updatedFilms = filmsService.rebuildLikeCounters();
+        log.info("Ответ <== 200 Ok. Исправлены счетчики лайков у {} фильмов", updatedFilms);
+        return updatedFilms;
+    }
+
+    /**
+     * Endpoint обрабатывает запрос статистики кэша фильмов: размер, попадания, промахи и вытеснения.
+     *
+     * @return статистика кэша фильмов
+     */
+    @GetMapping("/films/cache/stats")
+    public FilmCache.Stats getFilmCacheStats() {
+        log.info("Запрос ==> GET статистика кэша фильмов");
+        var stats = filmsService.getFilmCacheStats();
+        log.info("Ответ <== 200 Ok. {}", stats);
+        return stats;
+    }
+
+    /**
+     * Endpoint обрабатывает запрос статистики записи событий ленты: глубина очереди,
+     * количество записанных событий и время записи пакетов.
+     *
+     * @return статистика записи событий
+     */
+    @GetMapping("/events/writer/stats")
+    public EventWriter.Stats getEventWriterStats() {
+        log.info("Запрос ==> GET статистика записи событий");
+        var stats = eventService.getEventWriterStats();
+        log.info("Ответ <== 200 Ok. {}", stats);
+        return stats;
+    }
+
+    /**
+     * Endpoint обрабатывает запрос на внеочередное удаление или перенос в архив событий ленты,
+     * вышедших за ограничения хранения.
+     *
+     * @return количество удаленных событий и время выполнения
+     */
+    @PutMapping("/events/compact")
+    public EventCompactor.Run compactEvents() {
+        log.info("Запрос ==> PUT ограничить ленту событий");
+        var run = eventService.compactEvents();
+        log.info("Ответ <== 200 Ok. {}", run);
+        return run;
+    }
+
+    /**
+     * Endpoint обрабатывает запрос статистики ограничения ленты событий: настройки хранения,
+     * количество удаленных событий и время выполнения.
+     *
+     * @return статистика ограничения ленты событий
+     */
+    @GetMapping("/events/retention/stats")
+    public EventCompactor.Stats getRetentionStats() {
+        log.info("Запрос ==> GET статистика ограничения ленты событий");
+        var stats = eventService.getRetentionStats();
+        log.info("Ответ <== 200 Ok. {}", stats);
+        return stats;
+    }
+
+    /**
+     * Endpoint обрабатывает запрос выгрузки архива событий ленты.
+     * События записываются в ответ по мере чтения из БД, без сборки списка в памяти.
+     *
+     * @return JSON-массив событий архива в порядке их ID
+     */
+    @GetMapping("/events/archive")
+    public ResponseEntity<StreamingResponseBody> exportArchivedEvents() {
+        log.info("Запрос ==> GET выгрузка архива событий");
+        var response = jsonArrayStreamer.<Event>stream(eventService::streamArchivedEvents);
+        log.info("Ответ <== 200 Ok. Архив событий выгружается потоком");
+        return response;
+    }
+}
@@ -65,6 +65,21 @@ public class AppErrorResponseController {
         return new ErrorResponse(e.getError(), e.getMessage());
     }
 
+    /**
+     * Обработчик исключений для ответов UNPROCESSABLE_ENTITY, когда поиск прекращен по ограничениям
+     * и результат не может быть получен.
+     *
+     * @param e перехваченное исключение
+     * @return стандартный API-ответ об ошибке ErrorResponse c указанием компонента, источника и вероятных причинах
+     */
+    @ExceptionHandler({SearchLimitExceededException.class})
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponse handleSearchLimitExceededResponse(final AppException e) {
+        String message = "Поиск прекращен по ограничениям. Сформирован ответ '422 Unprocessable Entity'.";
+        log.warn("{} {} {} {}", message, e.getSource(), e.getError(), e.getMessage());
+        return new ErrorResponse(e.getError(), e.getMessage());
+    }
+
     /**
      * Обработчик исключений для ответов INTERNAL_SERVER_ERROR
      *
@@ -1,19 +1,35 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.FilmImportReport;
+import ru.yandex.practicum.filmorate.entity.LikeOperation;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult;
+import ru.yandex.practicum.filmorate.service.BaseFilmImportService;
 import ru.yandex.practicum.filmorate.service.BaseFilmService;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 
+import java.io.InputStream;
 import java.util.List;
 
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_IMPORT_CHUNK_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_PAGE_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.MAX_IMPORT_CHUNK_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.MAX_PAGE_SIZE;
+
 /**
  * Контроллер обработки REST-запросов для работы с фильмотекой.
  */
@@ -29,6 +45,8 @@ public class FilmController {
      */
     private final BaseFilmService filmsService;
     private final DirectorService directorService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final BaseFilmImportService filmImportService;
 
     /**
      * Endpoint обрабатывает запрос на создание в фильмотеке новой записи "Фильм".
@@ -45,6 +63,32 @@ public class FilmController {
         return film;
     }
 
+    /**
+     * Endpoint обрабатывает запрос на пакетную загрузку фильмов. Тело запроса - NDJSON (application/x-ndjson)
+     * или CSV (text/csv), по одному фильму в строке. Строки с ошибками пропускаются и перечисляются в отчете.
+     *
+     * @param contentType формат тела запроса
+     * @param body        тело запроса
+     * @param chunkSize   количество фильмов, записываемых в БД одним пакетом
+     * @return отчет о загрузке
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public FilmImportReport importFilms(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            @RequestParam(name = "chunkSize", defaultValue = "" + DEFAULT_IMPORT_CHUNK_SIZE)
+            @Positive(message = "Размер пакета должен быть положительным значением")
+            @Max(value = MAX_IMPORT_CHUNK_SIZE, message = "Размер пакета не может быть больше " + MAX_IMPORT_CHUNK_SIZE)
+            int chunkSize) {
+        log.info("Запрос ==> POST пакетная загрузка фильмов, формат {}, размер пакета {}", contentType, chunkSize);
+        var format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? BaseFilmImportService.Format.NDJSON
+                : BaseFilmImportService.Format.CSV;
+        var report = filmImportService.importFilms(body, format, chunkSize);
+        log.info("Ответ <== 200 Ok. Загружено фильмов: {}, отклонено строк: {}", report.imported(), report.rejected());
+        return report;
+    }
+
     /**
      * Endpoint обрабатывает запрос на обновление фильма в фильмотеке.
      *
@@ -60,18 +104,49 @@ public class FilmController {
     }
 
     /**
-     * Endpoint обрабатывает запрос на получение списка всех фильмов.
+     * Endpoint обрабатывает запрос на получение списка фильмов. Без параметров возвращаются все фильмы,
+     * с параметрами limit и/или after - страница фильмов в порядке ID. Для получения следующей страницы
+     * в after передается ID последнего фильма текущей страницы.
      *
-     * @return список всех фильмов фильмотеки, может быть пустым
+     * @param limit размер страницы (необязательный параметр)
+     * @param after ID фильма, после которого начинается страница (необязательный параметр)
+     * @return список фильмов фильмотеки, может быть пустым
      */
     @GetMapping
-    public List<Film> getFilms() {
-        log.info("Запрос ==> GET получить список всех фильмов");
-        List<Film> filmList = filmsService.getFilms();
-        log.info("Ответ <== 200 Ok. Отправлен список всех фильмов сервиса {}", filmList);
+    public List<Film> getFilms(
+            @RequestParam(name = "limit", required = false)
+            @Positive(message = "Размер страницы должен быть положительным значением")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не может быть больше " + MAX_PAGE_SIZE)
+            Integer limit,
+            @RequestParam(name = "after", required = false)
+            @PositiveOrZero(message = "ID фильма не может быть отрицательным значением")
+            Integer after) {
+        List<Film> filmList;
+        if (limit == null && after == null) {
+            log.info("Запрос ==> GET получить список всех фильмов");
+            filmList = filmsService.getFilms();
+        } else {
+            log.info("Запрос ==> GET получить страницу фильмов после ID {}, размер страницы {}", after, limit);
+            filmList = filmsService.getFilms(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+        }
+        log.info("Ответ <== 200 Ok. Отправлен список фильмов сервиса, фильмов в списке: {}", filmList.size());
         return filmList;
     }
 
+    /**
+     * Endpoint обрабатывает запрос на потоковую выгрузку всех фильмов. Фильмы записываются в ответ
+     * по мере чтения из БД, полный список фильмов в памяти не собирается.
+     *
+     * @return JSON-массив всех фильмов фильмотеки, может быть пустым
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        log.info("Запрос ==> GET потоковая выгрузка всех фильмов");
+        var response = jsonArrayStreamer.<Film>stream(filmsService::streamFilms);
+        log.info("Ответ <== 200 Ok. Начата потоковая выгрузка всех фильмов сервиса");
+        return response;
+    }
+
     /**
      * Endpoint обрабатывает запрос на получение фильма из фильмотеки.
      *
@@ -116,6 +191,21 @@ public class FilmController {
         log.info("Ответ <== 200 Ok. Лайк отменен");
     }
 
+    /**
+     * Endpoint обрабатывает пакетный запрос на постановку и отмену лайков. Операции выполняются по порядку,
+     * для каждой операции возвращается ее результат, ошибка в одной операции не прерывает выполнение пакета.
+     *
+     * @param operations список операций: ID фильма, ID пользователя и вид операции ADD или REMOVE
+     * @return результаты операций в том же порядке
+     */
+    @PostMapping("/likes/batch")
+    public List<LikeOperationResult> applyLikes(@RequestBody List<LikeOperation> operations) {
+        log.info("Запрос ==> POST пакет из {} операций над лайками", operations.size());
+        var results = filmsService.applyLikes(operations);
+        log.info("Ответ <== 200 Ok. Пакет операций над лайками выполнен");
+        return results;
+    }
+
     /**
      * Endpoint обрабатывает запрос на получение топа рейтинга фильмов по лайкам пользователей.
      *
@@ -182,9 +272,17 @@ public class FilmController {
     }
 
     @GetMapping("/search")
-    public List<Film> searchFilms(@RequestParam(value = "query", required = true) String query,
-                                  @RequestParam(value = "by", required = true) String by) {
+    public List<Film> searchFilms(
+            @RequestParam(value = "query", required = true) String query,
+            @RequestParam(value = "by", required = true) String by,
+            @RequestParam(value = "limit", required = false)
+            @Positive(message = "Размер страницы должен быть положительным значением")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не может быть больше " + MAX_PAGE_SIZE)
+            Integer limit,
+            @RequestParam(value = "offset", defaultValue = "0")
+            @PositiveOrZero(message = "Смещение не может быть отрицательным значением")
+            int offset) {
         log.info("Запрос ==> GET список фильмов по строке {}, и параметры фильтрации {}", query, by);
-        return filmsService.getFilmsByTitleAndDirector(query, by);
+        return filmsService.getFilmsByTitleAndDirector(query, by, limit == null ? DEFAULT_PAGE_SIZE : limit, offset);
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Формирование ответа в виде JSON-массива, элементы которого записываются в поток ответа
+ * по мере их чтения из репозитория, без сборки полного списка в памяти.
+ */
+@Component
+@RequiredArgsConstructor
+class JsonArrayStreamer {
+    /**
+     * ObjectMapper приложения, настроенный так же, как для обычных JSON-ответов.
+     */
+    private final ObjectProvider<ObjectMapper> objectMapper;
+
+    /**
+     * Метод создает потоковый ответ из источника элементов.
+     *
+     * @param source источник, передающий элементы получателю по одному
+     * @param <T>    тип элементов массива
+     * @return ответ с JSON-массивом элементов
+     */
+    <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (var generator = objectMapper.getObject().getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                source.accept(element -> {
+                    try {
+                        generator.writeObject(element);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
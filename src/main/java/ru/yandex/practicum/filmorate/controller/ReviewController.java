@@ -17,19 +17,23 @@ public class ReviewController {
     public final BaseReviewService reviewService;
 
     /**
-     * Endpoint получения первых count отзывов по идентификатору фильма либо первых count всех отзывов
+     * Endpoint получения первых count отзывов по идентификатору фильма либо первых count всех отзывов.
+     * Следующая страница запрашивается с позицией after последнего отзыва страницы вида "полезность:ID".
      *
      * @param filmId идентификатор фильма
      * @param count  количество отзывов (по умолчанию 10)
+     * @param after  позиция, после которой начинается страница (необязательный параметр)
      * @return возвращает коллекцию объектов Review
      */
     @GetMapping
     public Collection<Review> get(
             @RequestParam(value = "filmId", required = false) Integer filmId,
-            @RequestParam(value = "count", defaultValue = "10") Integer count
+            @RequestParam(value = "count", defaultValue = "10") Integer count,
+            @RequestParam(value = "after", required = false) String after
     ) {
-        log.info("{}: GET отзывы по ид фильма = {}, count = {}", getClass().getSimpleName(), filmId, count);
-        return reviewService.get(filmId, count);
+        log.info("{}: GET отзывы по ид фильма = {}, count = {}, after = {}",
+                getClass().getSimpleName(), filmId, count, after);
+        return reviewService.get(filmId, reviewService.parseCursor(after), count);
     }
 
     /**
@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import ru.yandex.practicum.filmorate.entity.Event;
 import ru.yandex.practicum.filmorate.entity.Film;
@@ -26,6 +30,10 @@ import ru.yandex.practicum.filmorate.service.EventService;
 import java.util.Collection;
 import java.util.List;
 
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_PAGE_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_SUGGESTIONS_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.MAX_PAGE_SIZE;
+
 import static ru.yandex.practicum.filmorate.validate.ValidateExtender.validateUser;
 
 /**
@@ -43,6 +51,7 @@ public class UserController {
      */
     private final BaseUserService userService;
     private final EventService eventService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     /**
      * Endpoint обрабатывает запрос на создание нового пользователя фильмотеки.
@@ -76,18 +85,49 @@ public class UserController {
     }
 
     /**
-     * Endpoint обрабатывает запрос на получение всех пользователей фильмотеки
+     * Endpoint обрабатывает запрос на получение пользователей фильмотеки. Без параметров возвращаются
+     * все пользователи, с параметрами limit и/или after - страница пользователей в порядке ID.
+     * Для получения следующей страницы в after передается ID последнего пользователя текущей страницы.
      *
-     * @return список всех пользователей, может быть пустым
+     * @param limit размер страницы (необязательный параметр)
+     * @param after ID пользователя, после которого начинается страница (необязательный параметр)
+     * @return список пользователей, может быть пустым
      */
     @GetMapping
-    public List<User> getUserService() {
-        log.info("Запрос ==> GET получить список всех пользователей");
-        var result = userService.getAllUsers();
-        log.info("Ответ <== 200 Ok. Список всех пользователей сервиса");
+    public List<User> getUserService(
+            @RequestParam(name = "limit", required = false)
+            @Positive(message = "Размер страницы должен быть положительным значением")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не может быть больше " + MAX_PAGE_SIZE)
+            Integer limit,
+            @RequestParam(name = "after", required = false)
+            @PositiveOrZero(message = "ID пользователя не может быть отрицательным значением")
+            Integer after) {
+        List<User> result;
+        if (limit == null && after == null) {
+            log.info("Запрос ==> GET получить список всех пользователей");
+            result = userService.getAllUsers();
+        } else {
+            log.info("Запрос ==> GET получить страницу пользователей после ID {}, размер страницы {}", after, limit);
+            result = userService.getUsers(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+        }
+        log.info("Ответ <== 200 Ok. Список пользователей сервиса, пользователей в списке: {}", result.size());
         return result;
     }
 
+    /**
+     * Endpoint обрабатывает запрос на потоковую выгрузку всех пользователей. Пользователи записываются
+     * в ответ по мере чтения из БД, полный список пользователей в памяти не собирается.
+     *
+     * @return JSON-массив всех пользователей фильмотеки, может быть пустым
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        log.info("Запрос ==> GET потоковая выгрузка всех пользователей");
+        var response = jsonArrayStreamer.<User>stream(userService::streamUsers);
+        log.info("Ответ <== 200 Ok. Начата потоковая выгрузка всех пользователей сервиса");
+        return response;
+    }
+
     /**
      * Endpoint обрабатывает запрос на получение пользователя фильмотеки по его ID.
      *
@@ -147,6 +187,48 @@ public class UserController {
         return result;
     }
 
+    /**
+     * Endpoint обрабатывает запрос на получение предложений друзей: друзей друзей пользователя,
+     * которых он еще не добавил, в порядке убывания количества общих друзей.
+     *
+     * @param id    ID пользователя
+     * @param limit наибольшее количество предложений (необязательный параметр)
+     * @return список предлагаемых пользователей, может быть пустым
+     */
+    @GetMapping("/{id}/suggestions")
+    public List<User> getFriendSuggestions(
+            @PathVariable("id") @Positive(message = idError) int id,
+            @RequestParam(name = "limit", defaultValue = "" + DEFAULT_SUGGESTIONS_SIZE)
+            @Positive(message = "Количество предложений должно быть положительным значением")
+            @Max(value = MAX_PAGE_SIZE, message = "Количество предложений не может быть больше " + MAX_PAGE_SIZE)
+            int limit) {
+        log.info("Запрос ==> GET получить предложения друзей пользователя ID {}", id);
+        var result = userService.getFriendSuggestions(id, limit);
+        log.info("Ответ <== 200 Ok. Предложения друзей пользователю ID {}, пользователей в списке: {}",
+                id, result.size());
+        return result;
+    }
+
+    /**
+     * Endpoint обрабатывает запрос на поиск кратчайшей цепочки друзей между двумя пользователями:
+     * каждый следующий пользователь цепочки - друг предыдущего. Если поиск прекращен по ограничениям
+     * длины цепочки или количества просмотренных пользователей, возвращается ответ '422 Unprocessable Entity'.
+     *
+     * @param id      ID первого пользователя
+     * @param otherId ID второго пользователя
+     * @return пользователи цепочки от первого до второго включительно, пустой список, если цепочки нет
+     */
+    @GetMapping("/{id}/path/{other-id}")
+    public List<User> getFriendPath(
+            @PathVariable("id") @Positive(message = idError) int id,
+            @PathVariable("other-id") @Positive(message = idError) int otherId) {
+        log.info("Запрос ==> GET найти цепочку друзей от пользователя ID {} до пользователя ID {}", id, otherId);
+        var result = userService.getFriendPath(id, otherId);
+        log.info("Ответ <== 200 Ok. Цепочка друзей от пользователя ID {} до пользователя ID {}, пользователей: {}",
+                id, otherId, result.size());
+        return result;
+    }
+
     /**
      * Endpoint обрабатывает запрос на получение списка всех общих друзей двух пользователей.
      *
@@ -166,24 +248,55 @@ public class UserController {
 
     /**
      * Endpoint обрабатывает запрос на получение списка рекомендованных фильмов.
+     * Рекомендации рассчитываются заранее, время их расчета передается в заголовке Last-Modified.
      *
      * @param id идентификатор пользователя
      * @return список всех рекомендованных фильмов пользователю
      */
     @GetMapping("/{id}/recommendations")
-    public List<Film> getRecommendations(
+    public ResponseEntity<List<Film>> getRecommendations(
             @PathVariable("id") @Positive(message = idError) int id) {
         log.info("Запрос ==> GET получить список рекомендованных фильмов пользователю с ID {}", id);
-        var result = userService.getRecommendations(id);
-        log.info("Ответ <==  200 Ok. Список рекомендованных фильмов пользователю с ID {}", id);
-        return result;
+        var result = userService.getStoredRecommendations(id);
+        log.info("Ответ <==  200 Ok. Список рекомендованных фильмов пользователю с ID {}, рассчитан {}",
+                id, result.computedAt());
+        return ResponseEntity.ok()
+                .lastModified(result.computedAt())
+                .body(result.films());
     }
 
+    /**
+     * Endpoint обрабатывает запрос на получение ленты событий пользователя. Без параметров возвращается
+     * вся лента, с параметрами limit, after и/или before - страница ленты в порядке времени и ID событий.
+     * Позиции after и before передаются строкой вида "время:ID" события; для получения следующей страницы
+     * в after передается позиция последнего события текущей страницы, для предыдущей в before - первого.
+     *
+     * @param id     идентификатор пользователя
+     * @param limit  размер страницы (необязательный параметр)
+     * @param after  позиция, после которой начинается страница (необязательный параметр)
+     * @param before позиция, перед которой заканчивается страница (необязательный параметр)
+     * @return список событий, может быть пустым
+     */
     @GetMapping("/{id}/feed")
-    public Collection<Event> getFeed(@PathVariable("id") @Positive(message = idError) int id) {
-        log.info("Запрос ==> GET получить список новостей пользователя с ID {}", id);
-        var result = eventService.getFeed(id);
-        log.info("Ответ <==  200 Ok. Список новостей пользователю с ID {}", id);
+    public Collection<Event> getFeed(
+            @PathVariable("id") @Positive(message = idError) int id,
+            @RequestParam(name = "limit", required = false)
+            @Positive(message = "Размер страницы должен быть положительным значением")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не может быть больше " + MAX_PAGE_SIZE)
+            Integer limit,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "before", required = false) String before) {
+        Collection<Event> result;
+        if (limit == null && after == null && before == null) {
+            log.info("Запрос ==> GET получить список новостей пользователя с ID {}", id);
+            result = eventService.getFeed(id);
+        } else {
+            log.info("Запрос ==> GET получить страницу новостей пользователя с ID {} после {} и до {}, размер {}",
+                    id, after, before, limit);
+            result = eventService.getFeed(id, eventService.parseCursor(after), eventService.parseCursor(before),
+                    limit == null ? DEFAULT_PAGE_SIZE : limit);
+        }
+        log.info("Ответ <==  200 Ok. Список новостей пользователю с ID {}, событий в списке: {}", id, result.size());
         return result;
     }
 
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.entity;
+
+/**
+ * Позиция в ленте событий пользователя. События ленты упорядочены по времени, а при совпадении времени - по ID,
+ * поэтому позиция однозначно задается парой из времени и ID события. В запросах позиция передается
+ * строкой вида "время:ID".
+ *
+ * @param timestamp время события
+ * @param eventId   ID события
+ */
+public record FeedCursor(long timestamp, int eventId) {
+
+    /**
+     * Метод возвращает позицию события в ленте.
+     *
+     * @param event событие
+     * @return позиция события
+     */
+    public static FeedCursor of(Event event) {
+        return new FeedCursor(event.getTimestamp(), event.getEventId());
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + ":" + eventId;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.entity;
+
+import java.util.List;
+
+/**
+ * Отчет о пакетной загрузке фильмов.
+ *
+ * @param imported количество созданных фильмов
+ * @param rejected количество отклоненных строк
+ * @param errors   ошибки по строкам входных данных, сохраняются не более MAX_IMPORT_ERRORS первых ошибок
+ */
+public record FilmImportReport(int imported, int rejected, List<LineError> errors) {
+
+    /**
+     * Ошибка обработки строки входных данных.
+     *
+     * @param line    номер строки, начиная с 1
+     * @param message описание ошибки
+     */
+    public record LineError(int line, String message) {
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.entity;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Рекомендованные пользователю фильмы вместе с временем расчета рекомендаций.
+ *
+ * @param films      рекомендованные фильмы
+ * @param computedAt время расчета рекомендаций; рекомендации могут не учитывать лайки, поставленные позже
+ */
+public record FilmRecommendations(List<Film> films, Instant computedAt) {
+}
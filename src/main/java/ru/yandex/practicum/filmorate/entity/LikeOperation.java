@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.entity;
+
+/**
+ * Операция над лайком в пакетном запросе.
+ *
+ * @param filmId ID фильма
+ * @param userId ID пользователя
+ * @param op     вид операции
+ */
+public record LikeOperation(int filmId, int userId, Op op) {
+
+    /**
+     * Вид операции над лайком.
+     */
+    public enum Op { ADD, REMOVE }
+}
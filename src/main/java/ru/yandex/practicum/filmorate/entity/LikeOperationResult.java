@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.entity;
+
+/**
+ * Результат выполнения операции над лайком из пакетного запроса.
+ *
+ * @param filmId ID фильма
+ * @param userId ID пользователя
+ * @param op     вид операции
+ * @param status результат операции
+ */
+public record LikeOperationResult(int filmId, int userId, LikeOperation.Op op, Status status) {
+
+    /**
+     * Результат операции над лайком.
+     */
+    public enum Status {
+        /**
+         * Лайк поставлен или отменен.
+         */
+        APPLIED,
+        /**
+         * Лайк уже был поставлен ранее, состояние не изменилось.
+         */
+        UNCHANGED,
+        /**
+         * Фильм, пользователь или отменяемый лайк не найдены.
+         */
+        NOT_FOUND,
+        /**
+         * Операция задана некорректно: не указан вид операции или ID не положительный.
+         */
+        INVALID
+    }
+}
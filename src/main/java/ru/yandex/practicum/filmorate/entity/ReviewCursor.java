@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.entity;
+
+/**
+ * Позиция в списке отзывов. Отзывы упорядочены по убыванию полезности, а при равной полезности - по ID,
+ * поэтому позиция однозначно задается парой из полезности и ID отзыва. В запросах позиция передается
+ * строкой вида "полезность:ID".
+ *
+ * @param useful   полезность отзыва
+ * @param reviewId ID отзыва
+ */
+public record ReviewCursor(int useful, int reviewId) {
+
+    /**
+     * Метод возвращает позицию отзыва в списке.
+     *
+     * @param review отзыв
+     * @return позиция отзыва
+     */
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.getUseful(), review.getReviewId());
+    }
+
+    @Override
+    public String toString() {
+        return useful + ":" + reviewId;
+    }
+}
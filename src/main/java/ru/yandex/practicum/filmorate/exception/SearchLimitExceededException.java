@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class SearchLimitExceededException extends AppException {
+
+    public SearchLimitExceededException(String source, String error, String message) {
+        super(source, error, message);
+    }
+}
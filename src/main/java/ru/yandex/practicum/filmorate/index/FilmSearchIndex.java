@@ -0,0 +1,325 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.entity.Director;
+import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.repository.DirectorRepository;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Поисковый индекс фильмов в памяти приложения.
+ * Названия фильмов и имена режиссеров разбиваются на триграммы (подстроки из трех символов),
+ * для каждой триграммы хранится список ID фильмов или режиссеров, в которых она встречается.
+ * Поиск подстроки сводится к пересечению списков по всем триграммам запроса и проверке найденных кандидатов,
+ * без полного просмотра таблиц FILMS и DIRECTORS. Найденные фильмы упорядочиваются по количеству лайков.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex extends GuardedIndex {
+    /**
+     * Длина n-граммы, запросы короче нее индексом не обрабатываются.
+     */
+    public static final int GRAM_LENGTH = 3;
+    private final FilmRepository films;
+    private final DirectorRepository directors;
+    private final PopularFilmsIndex popularFilms;
+    private final Map<Integer, FilmEntry> filmEntries = new HashMap<>();
+    private final Map<Integer, String> directorNames = new HashMap<>();
+    private final Map<Integer, Set<Integer>> filmsByDirector = new HashMap<>();
+    private final Map<String, Set<Integer>> titleGrams = new HashMap<>();
+    private final Map<String, Set<Integer>> directorGrams = new HashMap<>();
+
+    /**
+     * Метод строит индекс по всем фильмам и режиссерам из репозиториев.
+     */
+    @PostConstruct
+    public void load() {
+        log.info("Построение поискового индекса фильмов");
+        var allDirectors = directors.findAll();
+        var allFilms = films.getFilms();
+        write(() -> {
+            filmEntries.clear();
+            directorNames.clear();
+            filmsByDirector.clear();
+            titleGrams.clear();
+            directorGrams.clear();
+            allDirectors.forEach(director -> putDirectorEntry(director.getId(), normalize(director.getName())));
+            allFilms.forEach(film -> putFilmEntry(film.getId(), toEntry(film)));
+        });
+        log.info("Поисковый индекс построен, фильмов: {}, режиссеров: {}", allFilms.size(), allDirectors.size());
+    }
+
+    /**
+     * Метод добавляет фильм в индекс или обновляет его название и список режиссеров.
+     *
+     * @param film созданный или обновленный фильм
+     */
+    public void putFilm(Film film) {
+        int filmId = film.getId();
+        var previous = write(() -> {
+            var entry = removeFilmEntry(filmId);
+            putFilmEntry(filmId, toEntry(film));
+            return entry;
+        });
+        IndexTransactions.onRollback(() -> write(() -> {
+            removeFilmEntry(filmId);
+            if (previous != null) {
+                putFilmEntry(filmId, previous);
+            }
+        }));
+    }
+
+    /**
+     * Метод удаляет фильм из индекса.
+     *
+     * @param filmId ID удаленного фильма
+     */
+    public void removeFilm(int filmId) {
+        var removed = write(() -> removeFilmEntry(filmId));
+        if (removed != null) {
+            IndexTransactions.onRollback(() -> write(() -> putFilmEntry(filmId, removed)));
+        }
+    }
+
+    /**
+     * Метод добавляет режиссера в индекс или обновляет его имя.
+     *
+     * @param director созданный или обновленный режиссер
+     */
+    public void putDirector(Director director) {
+        int directorId = director.getId();
+        var previous = write(() -> {
+            var name = directorNames.get(directorId);
+            if (name != null) {
+                removeGrams(directorGrams, name, directorId);
+            }
+            putDirectorEntry(directorId, normalize(director.getName()));
+            return name;
+        });
+        IndexTransactions.onRollback(() -> write(() -> {
+            removeGrams(directorGrams, directorNames.remove(directorId), directorId);
+            if (previous != null) {
+                putDirectorEntry(directorId, previous);
+            }
+        }));
+    }
+
+    /**
+     * Метод удаляет режиссера из индекса вместе с его связями с фильмами.
+     *
+     * @param directorId ID удаленного режиссера
+     */
+    public void removeDirector(int directorId) {
+        var removed = write(() -> {
+            var name = directorNames.remove(directorId);
+            if (name == null) {
+                return null;
+            }
+            removeGrams(directorGrams, name, directorId);
+            var filmIds = filmsByDirector.getOrDefault(directorId, Set.of());
+            filmsByDirector.remove(directorId);
+            filmIds.forEach(filmId -> {
+                var entry = filmEntries.get(filmId);
+                var directorIds = new ArrayList<>(entry.directorIds());
+                directorIds.remove(Integer.valueOf(directorId));
+                filmEntries.put(filmId, new FilmEntry(entry.title(), directorIds));
+            });
+            return new DirectorEntry(name, filmIds);
+        });
+        if (removed == null) {
+            return;
+        }
+        IndexTransactions.onRollback(() -> write(() -> {
+            putDirectorEntry(directorId, removed.name());
+            removed.filmIds().forEach(filmId -> {
+                var entry = filmEntries.get(filmId);
+                if (entry != null) {
+                    var directorIds = new ArrayList<>(entry.directorIds());
+                    directorIds.add(directorId);
+                    filmEntries.put(filmId, new FilmEntry(entry.title(), directorIds));
+                    filmsByDirector.computeIfAbsent(directorId, id -> new HashSet<>()).add(filmId);
+                }
+            });
+        }));
+    }
+
+    /**
+     * Метод ищет фильмы по подстроке в названии и/или в имени режиссера.
+     * Пустая строка означает, что поиск по соответствующему полю не выполняется.
+     *
+     * @param title    подстрока названия фильма
+     * @param director подстрока имени режиссера
+     * @return ID найденных фильмов в порядке убывания количества лайков; пустое значение, если запрос
+     * короче {@link #GRAM_LENGTH} символов и не может быть обработан индексом
+     */
+    public Optional<List<Integer>> search(String title, String director) {
+        var titleQuery = normalize(title);
+        var directorQuery = normalize(director);
+        if ((!titleQuery.isEmpty() && titleQuery.length() < GRAM_LENGTH)
+                || (!directorQuery.isEmpty() && directorQuery.length() < GRAM_LENGTH)) {
+            return Optional.empty();
+        }
+        Set<Integer> foundFilmIds = read(() -> {
+            Set<Integer> filmIds = new HashSet<>();
+            if (!titleQuery.isEmpty()) {
+                for (int filmId : candidates(titleGrams, titleQuery)) {
+                    if (filmEntries.get(filmId).title().contains(titleQuery)) {
+                        filmIds.add(filmId);
+                    }
+                }
+            }
+            if (!directorQuery.isEmpty()) {
+                for (int directorId : candidates(directorGrams, directorQuery)) {
+                    if (directorNames.get(directorId).contains(directorQuery)) {
+                        filmIds.addAll(filmsByDirector.getOrDefault(directorId, Set.of()));
+                    }
+                }
+            }
+            return filmIds;
+        });
+        return Optional.of(sortByLikes(foundFilmIds.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Метод упорядочивает фильмы по убыванию количества лайков, а при равенстве - по возрастанию ID.
+     * Количество лайков читается из индекса популярности один раз для всех фильмов; ключ сортировки
+     * содержит количество лайков в старших 32 битах и инвертированный ID в младших.
+     *
+     * @param filmIds ID фильмов
+     * @return упорядоченный список ID фильмов
+     */
+    private List<Integer> sortByLikes(int[] filmIds) {
+        int[] likes = popularFilms.getLikes(filmIds);
+        long[] keys = new long[filmIds.length];
+        for (int i = 0; i < filmIds.length; i++) {
+            keys[i] = ((long) likes[i] << 32) | (Integer.MAX_VALUE - filmIds[i]);
+        }
+        Arrays.sort(keys);
+        List<Integer> sorted = new ArrayList<>(keys.length);
+        for (int i = keys.length - 1; i >= 0; i--) {
+            sorted.add(Integer.MAX_VALUE - (int) (keys[i] & 0xFFFFFFFFL));
+        }
+        return sorted;
+    }
+
+    /**
+     * Метод пересекает списки ID по всем триграммам запроса, начиная с самого короткого списка.
+     *
+     * @param postings списки ID по триграммам
+     * @param query    строка запроса
+     * @return ID, в которых встречаются все триграммы запроса
+     */
+    private Set<Integer> candidates(Map<String, Set<Integer>> postings, String query) {
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            var list = postings.get(gram);
+            if (list == null) {
+                return Set.of();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> result = new HashSet<>(lists.getFirst());
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void putFilmEntry(int filmId, FilmEntry entry) {
+        filmEntries.put(filmId, entry);
+        addGrams(titleGrams, entry.title(), filmId);
+        entry.directorIds().forEach(directorId ->
+                filmsByDirector.computeIfAbsent(directorId, id -> new HashSet<>()).add(filmId));
+    }
+
+    private FilmEntry removeFilmEntry(int filmId) {
+        var entry = filmEntries.remove(filmId);
+        if (entry != null) {
+            removeGrams(titleGrams, entry.title(), filmId);
+            entry.directorIds().forEach(directorId -> {
+                var filmIds = filmsByDirector.get(directorId);
+                if (filmIds != null) {
+                    filmIds.remove(filmId);
+                }
+            });
+        }
+        return entry;
+    }
+
+    private void putDirectorEntry(int directorId, String name) {
+        directorNames.put(directorId, name);
+        addGrams(directorGrams, name, directorId);
+    }
+
+    private void addGrams(Map<String, Set<Integer>> postings, String text, int id) {
+        grams(text).forEach(gram -> postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id));
+    }
+
+    private void removeGrams(Map<String, Set<Integer>> postings, String text, int id) {
+        if (text == null) {
+            return;
+        }
+        grams(text).forEach(gram -> {
+            var ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        });
+    }
+
+    private Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private FilmEntry toEntry(Film film) {
+        List<Integer> directorIds = film.getDirectors() == null
+                ? List.of()
+                : film.getDirectors().stream().map(Director::getId).distinct().toList();
+        return new FilmEntry(normalize(film.getName()), directorIds);
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Данные фильма, по которым выполняется поиск.
+     *
+     * @param title       название фильма в нижнем регистре
+     * @param directorIds ID режиссеров фильма
+     */
+    private record FilmEntry(String title, List<Integer> directorIds) {
+    }
+
+    /**
+     * Удаленный из индекса режиссер.
+     *
+     * @param name    имя режиссера в нижнем регистре
+     * @param filmIds ID фильмов режиссера
+     */
+    private record DirectorEntry(String name, Set<Integer> filmIds) {
+    }
+}
@@ -0,0 +1,362 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_FRIEND_PATH_MAX_DEPTH;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_FRIEND_PATH_MAX_VISITED;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_SUGGESTION_HUB_DEGREE;
+
+/**
+ * Индекс дружбы пользователей в памяти приложения.
+ * Для каждого пользователя хранятся отсортированные массивы ID его друзей (пользователей, которых он добавил)
+ * и ID пользователей, добавивших его в друзья. Друзья пользователя читаются без обращения к БД,
+ * общие друзья находятся пересечением двух массивов, а удаление пользователя затрагивает
+ * только массивы его друзей и подписчиков. Предложения друзей ищутся среди друзей друзей пользователя,
+ * цепочка друзей между двумя пользователями - двунаправленным поиском в ширину.
+ */
+@Slf4j
+@Component
+public class FriendsIndex extends GuardedIndex {
+    private final FriendRepository friends;
+    private final int maxHubDegree;
+    private final int maxPathDepth;
+    private final int maxPathVisited;
+    private final Map<Integer, int[]> friendsByUser = new HashMap<>();
+    private final Map<Integer, int[]> followersByUser = new HashMap<>();
+
+    @Autowired
+    public FriendsIndex(FriendRepository friends,
+                        @Value("${filmorate.friends.suggestions.max-hub-degree:" + DEFAULT_SUGGESTION_HUB_DEGREE + "}")
+                        int maxHubDegree,
+                        @Value("${filmorate.friends.path.max-depth:" + DEFAULT_FRIEND_PATH_MAX_DEPTH + "}")
+                        int maxPathDepth,
+                        @Value("${filmorate.friends.path.max-visited:" + DEFAULT_FRIEND_PATH_MAX_VISITED + "}")
+                        int maxPathVisited) {
+        if (maxHubDegree <= 0 || maxPathDepth <= 0 || maxPathVisited <= 0) {
+            throw new IllegalArgumentException("Наибольшее количество друзей просматриваемого друга, длина цепочки"
+                    + " друзей и количество просматриваемых при ее поиске пользователей должны быть положительными");
+        }
+        this.friends = friends;
+        this.maxHubDegree = maxHubDegree;
+        this.maxPathDepth = maxPathDepth;
+        this.maxPathVisited = maxPathVisited;
+    }
+
+    /**
+     * Метод строит индекс по всем записям о дружбе из репозитория.
+     */
+    @PostConstruct
+    public void load() {
+        log.info("Построение индекса дружбы пользователей");
+        var allFriendIds = friends.getAllFriendIds();
+        write(() -> {
+            friendsByUser.clear();
+            followersByUser.clear();
+            allFriendIds.forEach((userId, friendIds) -> friendIds.forEach(friendId -> link(userId, friendId)));
+        });
+        log.info("Индекс дружбы построен, пользователей с друзьями: {}", allFriendIds.size());
+    }
+
+    /**
+     * Метод добавляет в индекс друга пользователя.
+     *
+     * @param userId   ID пользователя
+     * @param friendId ID друга
+     */
+    public void addFriend(int userId, int friendId) {
+        if (write(() -> link(userId, friendId))) {
+            IndexTransactions.onRollback(() -> write(() -> unlink(userId, friendId)));
+        }
+    }
+
+    /**
+     * Метод удаляет из индекса друга пользователя.
+     *
+     * @param userId   ID пользователя
+     * @param friendId ID друга
+     */
+    public void deleteFriend(int userId, int friendId) {
+        if (write(() -> unlink(userId, friendId))) {
+            IndexTransactions.onRollback(() -> write(() -> link(userId, friendId)));
+        }
+    }
+
+    /**
+     * Метод удаляет из индекса пользователя вместе со всеми его связями.
+     *
+     * @param userId ID удаленного пользователя
+     */
+    public void removeUser(int userId) {
+        int[][] removed = write(() -> {
+            int[] userFriends = friendsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+            int[] userFollowers = followersByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+            for (int friendId : userFriends) {
+                unlink(userId, friendId);
+            }
+            for (int followerId : userFollowers) {
+                unlink(followerId, userId);
+            }
+            return new int[][]{userFriends, userFollowers};
+        });
+        if (removed[0].length > 0 || removed[1].length > 0) {
+            IndexTransactions.onRollback(() -> write(() -> {
+                for (int friendId : removed[0]) {
+                    link(userId, friendId);
+                }
+                for (int followerId : removed[1]) {
+                    link(followerId, userId);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Метод возвращает ID друзей пользователя.
+     *
+     * @param userId ID пользователя
+     * @return отсортированный массив ID друзей; изменять его нельзя
+     */
+    public int[] getFriends(int userId) {
+        return read(() -> friendsByUser.getOrDefault(userId, SortedIntArrays.EMPTY));
+    }
+
+    /**
+     * Метод возвращает ID общих друзей двух пользователей.
+     *
+     * @param userId  ID первого пользователя
+     * @param otherId ID второго пользователя
+     * @return отсортированный массив ID общих друзей
+     */
+    public int[] getCommonFriends(int userId, int otherId) {
+        return read(() -> SortedIntArrays.intersect(
+                friendsByUser.getOrDefault(userId, SortedIntArrays.EMPTY),
+                friendsByUser.getOrDefault(otherId, SortedIntArrays.EMPTY)));
+    }
+
+    /**
+     * Метод возвращает предложения друзей: друзей друзей пользователя, которых он еще не добавил,
+     * в порядке убывания количества общих друзей, а при равном количестве - по ID.
+     * Друзья друзей собираются в один массив и сортируются, количество общих друзей кандидата -
+     * это длина серии его ID, лучшие кандидаты отбираются кучей размером limit.
+     * Друзья пользователя, у которых друзей больше maxHubDegree, пропускаются: такие пользователи
+     * дали бы много кандидатов с одним общим другом и замедлили бы поиск.
+     *
+     * @param userId ID пользователя
+     * @param limit  наибольшее количество предложений
+     * @return ID предлагаемых пользователей в порядке убывания количества общих друзей
+     */
+    public int[] getSuggestions(int userId, int limit) {
+        return read(() -> {
+            int[] userFriends = friendsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+            int size = 0;
+            for (int friendId : userFriends) {
+                int[] friendFriends = friendsByUser.get(friendId);
+                if (friendFriends != null && friendFriends.length <= maxHubDegree) {
+                    size += friendFriends.length;
+                }
+            }
+            int[] candidates = new int[size];
+            size = 0;
+            for (int friendId : userFriends) {
+                int[] friendFriends = friendsByUser.get(friendId);
+                if (friendFriends != null && friendFriends.length <= maxHubDegree) {
+                    System.arraycopy(friendFriends, 0, candidates, size, friendFriends.length);
+                    size += friendFriends.length;
+                }
+            }
+            Arrays.sort(candidates);
+            // Ключ кандидата: количество общих друзей в старших битах, инвертированный ID в младших,
+            // поэтому больший ключ - лучший кандидат, а в вершине кучи - худший из отобранных.
+            var best = new PriorityQueue<Long>(limit + 1);
+            for (int i = 0; i < candidates.length; ) {
+                int candidateId = candidates[i];
+                int mutual = 0;
+                while (i < candidates.length && candidates[i] == candidateId) {
+                    mutual++;
+                    i++;
+                }
+                if (candidateId == userId || Arrays.binarySearch(userFriends, candidateId) >= 0) {
+                    continue;
+                }
+                best.offer(((long) mutual << 32) | (Integer.MAX_VALUE - candidateId));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            int[] suggestions = new int[best.size()];
+            for (int i = suggestions.length - 1; i >= 0; i--) {
+                suggestions[i] = Integer.MAX_VALUE - (int) (best.poll() & 0xFFFFFFFFL);
+            }
+            return suggestions;
+        });
+    }
+
+    /**
+     * Метод ищет кратчайшую цепочку друзей от одного пользователя до другого: каждый следующий
+     * пользователь цепочки - друг предыдущего. Поиск в ширину идет одновременно от первого пользователя
+     * по его друзьям и от второго по добавившим его в друзья, каждый шаг расширяет меньший из двух фронтов,
+     * поэтому просматривается намного меньше пользователей, чем при поиске с одной стороны.
+     * Просмотренные пользователи отмечаются в битовых множествах, предшественники хранятся только
+     * для просмотренных. Поиск прекращается, если цепочка длиннее maxPathDepth или просмотрено
+     * больше maxPathVisited пользователей; в этом случае цепочка может существовать, но не найдена.
+     * Если встреча фронтов уже найдена на текущем шаге, она и возвращается: все встречи одного шага
+     * дают цепочки одинаковой длины.
+     *
+     * @param fromUserId ID первого пользователя
+     * @param toUserId   ID второго пользователя
+     * @return найденная цепочка, пустая, если цепочки нет или поиск прекращен по ограничениям
+     */
+    public FriendPath findPath(int fromUserId, int toUserId) {
+        if (fromUserId == toUserId) {
+            return new FriendPath(new int[]{fromUserId}, false);
+        }
+        return read(() -> {
+            var forward = new PathSearch(fromUserId);
+            var backward = new PathSearch(toUserId);
+            int visited = 2;
+            while (forward.depth + backward.depth < maxPathDepth
+                    && forward.frontier.length > 0 && backward.frontier.length > 0) {
+                boolean forwardStep = forward.frontier.length <= backward.frontier.length;
+                var search = forwardStep ? forward : backward;
+                var other = forwardStep ? backward : forward;
+                var adjacency = forwardStep ? friendsByUser : followersByUser;
+                int[] next = new int[16];
+                int nextSize = 0;
+                int meeting = -1;
+                int meetingDepth = Integer.MAX_VALUE;
+                expansion:
+                for (int userId : search.frontier) {
+                    for (int neighbourId : adjacency.getOrDefault(userId, SortedIntArrays.EMPTY)) {
+                        if (search.visited.get(neighbourId)) {
+                            continue;
+                        }
+                        search.visited.set(neighbourId);
+                        search.previous.put(neighbourId, userId);
+                        if (other.visited.get(neighbourId) && other.depthOf(neighbourId) < meetingDepth) {
+                            meeting = neighbourId;
+                            meetingDepth = other.depthOf(neighbourId);
+                        }
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = neighbourId;
+                        if (++visited > maxPathVisited) {
+                            if (meeting != -1) {
+                                break expansion;
+                            }
+                            log.debug("Поиск цепочки друзей {} -> {} остановлен: просмотрено {} пользователей",
+                                    fromUserId, toUserId, visited);
+                            return new FriendPath(SortedIntArrays.EMPTY, true);
+                        }
+                    }
+                }
+                search.depth++;
+                search.frontier = Arrays.copyOf(next, nextSize);
+                for (int userId : search.frontier) {
+                    search.depths.put(userId, search.depth);
+                }
+                if (meeting != -1) {
+                    return new FriendPath(joinPath(forward, backward, meeting), false);
+                }
+            }
+            boolean limitReached = forward.frontier.length > 0 && backward.frontier.length > 0;
+            return new FriendPath(SortedIntArrays.EMPTY, limitReached);
+        });
+    }
+
+    private int[] joinPath(PathSearch forward, PathSearch backward, int meeting) {
+        int[] path = new int[forward.depthOf(meeting) + backward.depthOf(meeting) + 1];
+        int position = forward.depthOf(meeting);
+        for (int userId = meeting; position >= 0; position--) {
+            path[position] = userId;
+            userId = forward.previous.getOrDefault(userId, userId);
+        }
+        position = forward.depthOf(meeting);
+        for (int userId = meeting; position < path.length; position++) {
+            path[position] = userId;
+            userId = backward.previous.getOrDefault(userId, userId);
+        }
+        return path;
+    }
+
+    /**
+     * Состояние поиска в ширину с одной стороны: просмотренные пользователи, их предшественники и глубина,
+     * текущий фронт поиска.
+     */
+    private static class PathSearch {
+        private final BitSet visited = new BitSet();
+        private final Map<Integer, Integer> previous = new HashMap<>();
+        private final Map<Integer, Integer> depths = new HashMap<>();
+        private int[] frontier;
+        private int depth;
+
+        private PathSearch(int startUserId) {
+            visited.set(startUserId);
+            depths.put(startUserId, 0);
+            frontier = new int[]{startUserId};
+        }
+
+        private int depthOf(int userId) {
+            return depths.get(userId);
+        }
+    }
+
+    private boolean link(int userId, int friendId) {
+        int[] userFriends = friendsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+        int[] updated = SortedIntArrays.insert(userFriends, friendId);
+        if (updated == userFriends) {
+            return false;
+        }
+        friendsByUser.put(userId, updated);
+        followersByUser.put(friendId, SortedIntArrays.insert(
+                followersByUser.getOrDefault(friendId, SortedIntArrays.EMPTY), userId));
+        return true;
+    }
+
+    private boolean unlink(int userId, int friendId) {
+        if (!remove(friendsByUser, userId, friendId)) {
+            return false;
+        }
+        remove(followersByUser, friendId, userId);
+        return true;
+    }
+
+    private boolean remove(Map<Integer, int[]> adjacency, int key, int value) {
+        int[] values = adjacency.get(key);
+        if (values == null) {
+            return false;
+        }
+        int[] updated = SortedIntArrays.delete(values, value);
+        if (updated == values) {
+            return false;
+        }
+        if (updated.length == 0) {
+            adjacency.remove(key);
+        } else {
+            adjacency.put(key, updated);
+        }
+        return true;
+    }
+
+    /**
+     * Результат поиска цепочки друзей.
+     *
+     * @param userIds      ID пользователей цепочки от первого до второго включительно, пустой массив,
+     *                     если цепочка не найдена
+     * @param limitReached true, если поиск прекращен по ограничению длины цепочки или количества просмотренных
+     *                     пользователей; false, если цепочка найдена или ее точно нет
+     */
+    public record FriendPath(int[] userIds, boolean limitReached) {
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Базовый класс индексов в памяти приложения: чтение индекса выполняется параллельно,
+ * изменения - монопольно.
+ */
+abstract class GuardedIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    protected <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    protected void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Согласование индексов в памяти приложения с транзакциями БД.
+ * Индексы обновляются сразу после записи в БД; если запись выполнялась внутри внешней транзакции,
+ * и эта транзакция затем откатывается, изменения индексов отменяются компенсирующими действиями
+ * в порядке, обратном порядку изменений.
+ */
+public final class IndexTransactions {
+    private static final Object UNDO_LOG_KEY = new Object();
+
+    private IndexTransactions() {
+    }
+
+    /**
+     * Метод регистрирует действие, которое будет выполнено при откате текущей транзакции.
+     * Если транзакции нет, изменения в БД уже зафиксированы, и действие не регистрируется.
+     *
+     * @param compensation компенсирующее действие, отменяющее изменение индекса
+     */
+    @SuppressWarnings("unchecked")
+    public static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        var undoLog = (Deque<Runnable>) TransactionSynchronizationManager.getResource(UNDO_LOG_KEY);
+        if (undoLog == null) {
+            Deque<Runnable> newUndoLog = new ArrayDeque<>();
+            TransactionSynchronizationManager.bindResource(UNDO_LOG_KEY, newUndoLog);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(UNDO_LOG_KEY);
+                    if (status == STATUS_ROLLED_BACK) {
+                        newUndoLog.forEach(Runnable::run);
+                    }
+                }
+            });
+            undoLog = newUndoLog;
+        }
+        undoLog.push(compensation);
+    }
+}
@@ -0,0 +1,215 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_MINHASH_BANDS;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_MINHASH_ROWS;
+
+/**
+ * Индекс приближенного поиска похожих пользователей для рекомендаций (MinHash и LSH).
+ * Для множества лайков каждого пользователя строится подпись MinHash из bands * rows значений,
+ * подпись делится на bands полос по rows значений, и пользователь кладется в корзину каждой своей полосы.
+ * Кандидаты в похожие пользователи - это пользователи, попавшие хотя бы в одну общую корзину:
+ * чем больше полос и чем они короче, тем выше полнота поиска и тем больше кандидатов.
+ * Индекс работает только в приближенном режиме рекомендаций. Подписи пересчитываются лениво:
+ * изменение лайков пользователя только помечает его, пересчет выполняется при следующем поиске.
+ */
+@Slf4j
+@Component
+public class MinHashIndex extends GuardedIndex {
+    private static final long SEED = 0x5DEECE66DL;
+    private final UserLikesIndex userLikes;
+    private final boolean enabled;
+    private final int bands;
+    private final int rows;
+    private final long[] hashMultipliers;
+    private final long[] hashOffsets;
+    private final Map<Integer, long[]> bandKeysByUser = new HashMap<>();
+    private final Map<Long, int[]> usersByBandKey = new HashMap<>();
+    private final Set<Integer> changedUsers = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public MinHashIndex(UserLikesIndex userLikes,
+                        @Value("${filmorate.recommendations.approximate:false}") boolean enabled,
+                        @Value("${filmorate.recommendations.minhash.bands:" + DEFAULT_MINHASH_BANDS + "}") int bands,
+                        @Value("${filmorate.recommendations.minhash.rows:" + DEFAULT_MINHASH_ROWS + "}") int rows) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Количество полос и строк в полосе MinHash должно быть положительным");
+        }
+        this.userLikes = userLikes;
+        this.enabled = enabled;
+        this.bands = bands;
+        this.rows = rows;
+        var random = new Random(SEED);
+        hashMultipliers = new long[bands * rows];
+        hashOffsets = new long[bands * rows];
+        for (int i = 0; i < hashMultipliers.length; i++) {
+            hashMultipliers[i] = random.nextLong() | 1;
+            hashOffsets[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Метод помечает для построения подписи всех пользователей, у которых есть лайки.
+     */
+    @PostConstruct
+    public void load() {
+        if (enabled) {
+            for (int userId : userLikes.getUsers()) {
+                changedUsers.add(userId);
+            }
+            log.info("Приближенный режим рекомендаций: полос {}, строк в полосе {}, пользователей {}",
+                    bands, rows, changedUsers.size());
+        }
+    }
+
+    /**
+     * Метод сообщает, включен ли приближенный режим рекомендаций.
+     *
+     * @return true, если рекомендации считаются по кандидатам из этого индекса
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод помечает пользователя, лайки которого изменились, или который удален.
+     * Подпись пользователя будет пересчитана при следующем поиске.
+     *
+     * @param userId ID пользователя
+     */
+    public void markChanged(int userId) {
+        if (enabled) {
+            changedUsers.add(userId);
+        }
+    }
+
+    /**
+     * Метод возвращает кандидатов в похожие на пользователя пользователи: всех, кто попал с ним
+     * хотя бы в одну корзину LSH.
+     *
+     * @param userId ID пользователя
+     * @return отсортированный массив ID кандидатов без самого пользователя
+     */
+    public int[] getCandidates(int userId) {
+        refreshChanged();
+        return read(() -> {
+            long[] bandKeys = bandKeysByUser.get(userId);
+            if (bandKeys == null) {
+                return SortedIntArrays.EMPTY;
+            }
+            int size = 0;
+            for (long bandKey : bandKeys) {
+                size += usersByBandKey.get(bandKey).length;
+            }
+            int[] candidates = new int[size];
+            size = 0;
+            for (long bandKey : bandKeys) {
+                int[] users = usersByBandKey.get(bandKey);
+                System.arraycopy(users, 0, candidates, size, users.length);
+                size += users.length;
+            }
+            return SortedIntArrays.delete(SortedIntArrays.sortedDistinct(candidates), userId);
+        });
+    }
+
+    /**
+     * Метод пересчитывает подписи помеченных пользователей и перекладывает их по корзинам.
+     */
+    private void refreshChanged() {
+        if (changedUsers.isEmpty()) {
+            return;
+        }
+        write(() -> {
+            var iterator = changedUsers.iterator();
+            while (iterator.hasNext()) {
+                int userId = iterator.next();
+                iterator.remove();
+                long[] oldBandKeys = bandKeysByUser.remove(userId);
+                if (oldBandKeys != null) {
+                    for (long bandKey : oldBandKeys) {
+                        removeFromBucket(bandKey, userId);
+                    }
+                }
+                int[] films = userLikes.getLikedFilms(userId);
+                if (films.length > 0) {
+                    long[] bandKeys = toBandKeys(signature(films));
+                    bandKeysByUser.put(userId, bandKeys);
+                    for (long bandKey : bandKeys) {
+                        usersByBandKey.put(bandKey, SortedIntArrays.insert(
+                                usersByBandKey.getOrDefault(bandKey, SortedIntArrays.EMPTY), userId));
+                    }
+                }
+            }
+        });
+    }
+
+    private void removeFromBucket(long bandKey, int userId) {
+        int[] updated = SortedIntArrays.delete(usersByBandKey.get(bandKey), userId);
+        if (updated.length == 0) {
+            usersByBandKey.remove(bandKey);
+        } else {
+            usersByBandKey.put(bandKey, updated);
+        }
+    }
+
+    /**
+     * Метод строит подпись MinHash множества фильмов: для каждой хеш-функции - минимум ее значений по фильмам.
+     *
+     * @param films ID фильмов
+     * @return подпись из bands * rows значений
+     */
+    private long[] signature(int[] films) {
+        long[] signature = new long[hashMultipliers.length];
+        for (int i = 0; i < signature.length; i++) {
+            long min = Long.MAX_VALUE;
+            for (int filmId : films) {
+                min = Math.min(min, hash(filmId, i));
+            }
+            signature[i] = min;
+        }
+        return signature;
+    }
+
+    /**
+     * Метод сворачивает каждую полосу подписи в ключ корзины. Номер полосы входит в ключ,
+     * поэтому одинаковые значения разных полос попадают в разные корзины.
+     *
+     * @param signature подпись MinHash
+     * @return ключи корзин по числу полос
+     */
+    private long[] toBandKeys(long[] signature) {
+        long[] bandKeys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            bandKeys[band] = key;
+        }
+        return bandKeys;
+    }
+
+    private long hash(int filmId, int function) {
+        return mix(filmId * hashMultipliers[function] + hashOffsets[function]);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.Genre;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Индекс популярности фильмов в памяти приложения.
+ * Фильмы упорядочены по убыванию количества лайков, при равенстве - по возрастанию ID.
+ * Помимо общего рейтинга поддерживаются рейтинги по каждому жанру и по каждому году релиза,
+ * поэтому топ фильмов строится без обращения к БД за время, пропорциональное размеру топа.
+ * Если заданы и жанр, и год, просматривается меньший из двух рейтингов, а второе условие проверяется
+ * для каждого фильма; в худшем случае просматривается весь меньший рейтинг.
+ * Индекс строится при старте приложения и обновляется сервисом фильмов при каждом изменении.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularFilmsIndex extends GuardedIndex {
+    private static final Comparator<Rank> RANK_ORDER = Comparator.comparingInt(Rank::likes).reversed()
+            .thenComparingInt(Rank::filmId);
+    private final FilmRepository films;
+    private final Map<Integer, Rank> ranks = new HashMap<>();
+    private final NavigableSet<Rank> allFilms = new TreeSet<>(RANK_ORDER);
+    private final Map<Integer, NavigableSet<Rank>> filmsByGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Rank>> filmsByYear = new HashMap<>();
+
+    /**
+     * Метод строит индекс по всем фильмам из репозитория.
+     */
+    @PostConstruct
+    public void load() {
+        log.info("Построение индекса популярности фильмов");
+        var allFilmsFromDb = films.getFilms();
+        write(() -> {
+            ranks.clear();
+            allFilms.clear();
+            filmsByGenre.clear();
+            filmsByYear.clear();
+            allFilmsFromDb.forEach(film -> put(toRank(film, film.getRate())));
+        });
+        log.info("Индекс популярности построен, фильмов в индексе: {}", allFilmsFromDb.size());
+    }
+
+    /**
+     * Метод добавляет в индекс новый фильм, у которого еще нет лайков.
+     *
+     * @param film созданный фильм
+     */
+    public void addFilm(Film film) {
+        int filmId = film.getId();
+        write(() -> put(toRank(film, 0)));
+        IndexTransactions.onRollback(() -> write(() -> remove(filmId)));
+    }
+
+    /**
+     * Метод обновляет в индексе жанры и год релиза фильма, количество лайков сохраняется.
+     *
+     * @param film обновленный фильм
+     */
+    public void updateFilm(Film film) {
+        int filmId = film.getId();
+        var previous = read(() -> ranks.get(filmId));
+        if (previous == null) {
+            return;
+        }
+        write(() -> {
+            var current = remove(filmId);
+            put(toRank(film, current == null ? previous.likes() : current.likes()));
+        });
+        IndexTransactions.onRollback(() -> write(() -> {
+            var current = remove(filmId);
+            put(new Rank(filmId, current == null ? previous.likes() : current.likes(),
+                    previous.year(), previous.genreIds()));
+        }));
+    }
+
+    /**
+     * Метод удаляет фильм из индекса.
+     *
+     * @param filmId ID удаленного фильма
+     */
+    public void removeFilm(int filmId) {
+        var removed = write(() -> remove(filmId));
+        if (removed != null) {
+            IndexTransactions.onRollback(() -> write(() -> put(removed)));
+        }
+    }
+
+    /**
+     * Метод изменяет количество лайков фильма в индексе.
+     *
+     * @param filmId ID фильма
+     * @param delta  величина изменения количества лайков
+     */
+    public void changeLikes(int filmId, int delta) {
+        write(() -> shiftLikes(filmId, delta));
+        IndexTransactions.onRollback(() -> write(() -> shiftLikes(filmId, -delta)));
+    }
+
+    /**
+     * Метод возвращает количество лайков фильма по данным индекса.
+     *
+     * @param filmId ID фильма
+     * @return количество лайков, 0 - если фильма нет в индексе
+     */
+    public int getLikes(int filmId) {
+        return read(() -> {
+            var rank = ranks.get(filmId);
+            return rank == null ? 0 : rank.likes();
+        });
+    }
+
+    /**
+     * Метод возвращает количество лайков нескольких фильмов по данным индекса за одно обращение к индексу.
+     *
+     * @param filmIds ID фильмов
+     * @return количество лайков фильмов в порядке их ID, 0 - для фильмов, которых нет в индексе
+     */
+    public int[] getLikes(int[] filmIds) {
+        return read(() -> {
+            int[] likes = new int[filmIds.length];
+            for (int i = 0; i < filmIds.length; i++) {
+                var rank = ranks.get(filmIds[i]);
+                likes[i] = rank == null ? 0 : rank.likes();
+            }
+            return likes;
+        });
+    }
+
+    /**
+     * Метод возвращает ID фильмов топа по количеству лайков.
+     *
+     * @param topSize размер топа, если не указан - возвращаются все подходящие фильмы
+     * @param genreId ID жанра, если указан - в топ попадают только фильмы этого жанра
+     * @param year    год релиза, если указан - в топ попадают только фильмы этого года
+     * @return список ID фильмов в порядке убывания количества лайков
+     */
+    public List<Integer> getTopFilmIds(Integer topSize, Integer genreId, Integer year) {
+        return read(() -> {
+            NavigableSet<Rank> byGenre = genreId == null ? allFilms
+                    : filmsByGenre.getOrDefault(genreId, Collections.emptyNavigableSet());
+            NavigableSet<Rank> byYear = year == null ? allFilms
+                    : filmsByYear.getOrDefault(year, Collections.emptyNavigableSet());
+            boolean scanGenre = byGenre.size() <= byYear.size();
+            NavigableSet<Rank> source = scanGenre ? byGenre : byYear;
+            int limit = topSize == null ? Integer.MAX_VALUE : topSize;
+            List<Integer> top = new ArrayList<>(Math.min(limit, source.size()));
+            for (var rank : source) {
+                if (top.size() >= limit) {
+                    break;
+                }
+                boolean matches = scanGenre
+                        ? year == null || rank.year() == year
+                        : genreId == null || rank.genreIds().contains(genreId);
+                if (matches) {
+                    top.add(rank.filmId());
+                }
+            }
+            return top;
+        });
+    }
+
+    /**
+     * Метод упорядочивает фильмы по убыванию количества лайков, при равенстве - по возрастанию ID.
+     *
+     * @param filmIds ID фильмов
+     * @return ID фильмов в порядке популярности; фильмы, отсутствующие в индексе, пропускаются
+     */
+    public List<Integer> orderByPopularity(int[] filmIds) {
+        return read(() -> {
+            List<Rank> found = new ArrayList<>(filmIds.length);
+            for (int filmId : filmIds) {
+                var rank = ranks.get(filmId);
+                if (rank != null) {
+                    found.add(rank);
+                }
+            }
+            found.sort(RANK_ORDER);
+            return found.stream().map(Rank::filmId).toList();
+        });
+    }
+
+    private void shiftLikes(int filmId, int delta) {
+        var current = remove(filmId);
+        if (current != null) {
+            put(new Rank(filmId, Math.max(0, current.likes() + delta), current.year(), current.genreIds()));
+        }
+    }
+
+    private void put(Rank rank) {
+        ranks.put(rank.filmId(), rank);
+        allFilms.add(rank);
+        filmsByYear.computeIfAbsent(rank.year(), year -> new TreeSet<>(RANK_ORDER)).add(rank);
+        for (int genreId : rank.genreIds()) {
+            filmsByGenre.computeIfAbsent(genreId, genre -> new TreeSet<>(RANK_ORDER)).add(rank);
+        }
+    }
+
+    private Rank remove(int filmId) {
+        var rank = ranks.remove(filmId);
+        if (rank != null) {
+            allFilms.remove(rank);
+            filmsByYear.get(rank.year()).remove(rank);
+            for (int genreId : rank.genreIds()) {
+                filmsByGenre.get(genreId).remove(rank);
+            }
+        }
+        return rank;
+    }
+
+    private Rank toRank(Film film, int likes) {
+        List<Integer> genreIds = film.getGenres() == null
+                ? List.of()
+                : film.getGenres().stream().map(Genre::getId).distinct().toList();
+        return new Rank(film.getId(), likes, film.getReleaseDate().getYear(), genreIds);
+    }
+
+    /**
+     * Позиция фильма в рейтинге.
+     *
+     * @param filmId   ID фильма
+     * @param likes    количество лайков
+     * @param year     год релиза
+     * @param genreIds ID жанров фильма
+     */
+    private record Rank(int filmId, int likes, int year, List<Integer> genreIds) {
+    }
+}
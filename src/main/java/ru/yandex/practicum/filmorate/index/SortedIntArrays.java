@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+/**
+ * Операции над отсортированными массивами int без повторов, которые индексы используют как множества ID.
+ * Массивы не изменяются на месте: операции изменения возвращают новый массив.
+ */
+final class SortedIntArrays {
+    static final int[] EMPTY = new int[0];
+    /**
+     * Во сколько раз один массив должен быть длиннее другого, чтобы при пересечении вместо слияния
+     * элементы короткого массива искались в длинном двоичным поиском.
+     */
+    private static final int BINARY_SEARCH_RATIO = 16;
+
+    private SortedIntArrays() {
+    }
+
+    /**
+     * Метод добавляет значение в массив.
+     *
+     * @param array массив
+     * @param value добавляемое значение
+     * @return новый массив со значением, либо тот же массив, если значение в нем уже есть
+     */
+    static int[] insert(int[] array, int value) {
+        int position = Arrays.binarySearch(array, value);
+        if (position >= 0) {
+            return array;
+        }
+        position = -position - 1;
+        int[] updated = new int[array.length + 1];
+        System.arraycopy(array, 0, updated, 0, position);
+        updated[position] = value;
+        System.arraycopy(array, position, updated, position + 1, array.length - position);
+        return updated;
+    }
+
+    /**
+     * Метод удаляет значение из массива.
+     *
+     * @param array массив
+     * @param value удаляемое значение
+     * @return новый массив без значения, либо тот же массив, если значения в нем нет
+     */
+    static int[] delete(int[] array, int value) {
+        int position = Arrays.binarySearch(array, value);
+        if (position < 0) {
+            return array;
+        }
+        int[] updated = new int[array.length - 1];
+        System.arraycopy(array, 0, updated, 0, position);
+        System.arraycopy(array, position + 1, updated, position, array.length - position - 1);
+        return updated;
+    }
+
+    /**
+     * Метод пересекает два массива. Если один массив намного длиннее другого, элементы короткого
+     * ищутся в длинном двоичным поиском, иначе массивы сливаются за один проход.
+     *
+     * @param first  первый массив
+     * @param second второй массив
+     * @return отсортированный массив общих элементов
+     */
+    static int[] intersect(int[] first, int[] second) {
+        int[] shorter = first.length <= second.length ? first : second;
+        int[] longer = shorter == first ? second : first;
+        int[] result = new int[shorter.length];
+        int size = 0;
+        if ((long) shorter.length * BINARY_SEARCH_RATIO < longer.length) {
+            int from = 0;
+            for (int value : shorter) {
+                int position = Arrays.binarySearch(longer, from, longer.length, value);
+                if (position >= 0) {
+                    result[size++] = value;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < shorter.length && j < longer.length) {
+                if (shorter[i] < longer[j]) {
+                    i++;
+                } else if (shorter[i] > longer[j]) {
+                    j++;
+                } else {
+                    result[size++] = shorter[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Метод считает количество общих элементов двух массивов.
+     *
+     * @param first  первый массив
+     * @param second второй массив
+     * @return количество общих элементов
+     */
+    static int intersectionSize(int[] first, int[] second) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Метод возвращает элементы первого массива, которых нет во втором.
+     *
+     * @param first  первый массив
+     * @param second второй массив
+     * @return отсортированный массив разности
+     */
+    static int[] difference(int[] first, int[] second) {
+        int[] result = new int[first.length];
+        int size = 0;
+        int j = 0;
+        for (int value : first) {
+            while (j < second.length && second[j] < value) {
+                j++;
+            }
+            if (j == second.length || second[j] != value) {
+                result[size++] = value;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Метод сортирует массив на месте и убирает из него повторы.
+     *
+     * @param array массив
+     * @return отсортированный массив без повторов
+     */
+    static int[] sortedDistinct(int[] array) {
+        Arrays.sort(array);
+        int size = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (size == 0 || array[size - 1] != array[i]) {
+                array[size++] = array[i];
+            }
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+}
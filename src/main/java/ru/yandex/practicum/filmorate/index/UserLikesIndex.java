@@ -0,0 +1,348 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.entity.Like;
+import ru.yandex.practicum.filmorate.repository.LikeRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс лайков пользователей в памяти приложения.
+ * Для каждого пользователя хранится отсортированный массив ID фильмов, которым он поставил лайк,
+ * поэтому общие фильмы двух пользователей находятся слиянием двух массивов без обращения к БД.
+ * Для каждого фильма хранится обратный отсортированный массив ID поставивших ему лайк пользователей:
+ * по нему рекомендации считаются только среди пользователей, у которых есть хотя бы один общий
+ * с исходным пользователем фильм. Массивы не изменяются на месте: при изменении лайков они заменяются новыми.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserLikesIndex extends GuardedIndex {
+    private final LikeRepository likes;
+    private final Map<Integer, int[]> filmsByUser = new HashMap<>();
+    private final Map<Integer, int[]> usersByFilm = new HashMap<>();
+
+    /**
+     * Метод строит индекс по всем лайкам из репозитория.
+     */
+    @PostConstruct
+    public void load() {
+        log.info("Построение индекса лайков пользователей");
+        var allLikes = likes.getLikes();
+        Map<Integer, List<Integer>> likedFilms = new HashMap<>();
+        Map<Integer, List<Integer>> likingUsers = new HashMap<>();
+        for (Like like : allLikes) {
+            likedFilms.computeIfAbsent(like.getUserId(), userId -> new ArrayList<>()).add(like.getFilmId());
+            likingUsers.computeIfAbsent(like.getFilmId(), filmId -> new ArrayList<>()).add(like.getUserId());
+        }
+        write(() -> {
+            filmsByUser.clear();
+            usersByFilm.clear();
+            likedFilms.forEach((userId, filmIds) -> filmsByUser.put(userId, toSortedArray(filmIds)));
+            likingUsers.forEach((filmId, userIds) -> usersByFilm.put(filmId, toSortedArray(userIds)));
+        });
+        log.info("Индекс лайков построен, пользователей: {}, лайков: {}", likedFilms.size(), allLikes.size());
+    }
+
+    /**
+     * Метод добавляет в индекс лайк пользователя.
+     *
+     * @param userId ID пользователя
+     * @param filmId ID фильма
+     */
+    public void addLike(int userId, int filmId) {
+        if (write(() -> insert(userId, filmId))) {
+            IndexTransactions.onRollback(() -> write(() -> delete(userId, filmId)));
+        }
+    }
+
+    /**
+     * Метод удаляет из индекса лайк пользователя.
+     *
+     * @param userId ID пользователя
+     * @param filmId ID фильма
+     */
+    public void removeLike(int userId, int filmId) {
+        if (write(() -> delete(userId, filmId))) {
+            IndexTransactions.onRollback(() -> write(() -> insert(userId, filmId)));
+        }
+    }
+
+    /**
+     * Метод удаляет из индекса все лайки пользователя.
+     *
+     * @param userId ID удаленного пользователя
+     */
+    public void removeUser(int userId) {
+        var removed = write(() -> {
+            int[] films = filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+            for (int filmId : films) {
+                delete(userId, filmId);
+            }
+            return films;
+        });
+        if (removed.length > 0) {
+            IndexTransactions.onRollback(() -> write(() -> {
+                for (int filmId : removed) {
+                    insert(userId, filmId);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Метод удаляет из индекса все лайки фильма.
+     *
+     * @param filmId ID удаленного фильма
+     */
+    public void removeFilm(int filmId) {
+        int[] userIds = write(() -> {
+            int[] likingUsers = usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY);
+            for (int userId : likingUsers) {
+                delete(userId, filmId);
+            }
+            return likingUsers;
+        });
+        if (userIds.length > 0) {
+            IndexTransactions.onRollback(() -> write(() -> {
+                for (int userId : userIds) {
+                    insert(userId, filmId);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Метод возвращает отсортированный массив ID фильмов, которым пользователь поставил лайк.
+     *
+     * @param userId ID пользователя
+     * @return массив ID фильмов; изменять его нельзя
+     */
+    public int[] getLikedFilms(int userId) {
+        return read(() -> filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY));
+    }
+
+    /**
+     * Метод возвращает ID фильмов, которым поставили лайк оба пользователя.
+     *
+     * @param userId   ID первого пользователя
+     * @param friendId ID второго пользователя
+     * @return отсортированный массив ID общих фильмов
+     */
+    public int[] getCommonFilms(int userId, int friendId) {
+        return SortedIntArrays.intersect(getLikedFilms(userId), getLikedFilms(friendId));
+    }
+
+    /**
+     * Метод возвращает ID пользователей, поставивших лайк фильму.
+     *
+     * @param filmId ID фильма
+     * @return отсортированный массив ID пользователей; изменять его нельзя
+     */
+    public int[] getLikingUsers(int filmId) {
+        return read(() -> usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY));
+    }
+
+    /**
+     * Метод возвращает ID пользователей, у которых есть хотя бы один общий с пользователем фильм.
+     *
+     * @param userId ID пользователя
+     * @return отсортированный массив ID пользователей без самого пользователя
+     */
+    public int[] getNeighbours(int userId) {
+        return read(() -> SortedIntArrays.sortedDistinct(collectCoLikers(userId,
+                filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY))));
+    }
+
+    /**
+     * Метод возвращает ID всех пользователей, поставивших хотя бы один лайк.
+     *
+     * @return массив ID пользователей
+     */
+    public int[] getUsers() {
+        return read(() -> filmsByUser.keySet().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Метод возвращает ID фильмов, рекомендуемых пользователю. Для каждого пользователя, у которого есть общие
+     * с исходным пользователем фильмы, считается доля общих фильмов среди всех его лайков; рекомендуются фильмы
+     * пользователей с наибольшей долей, которым исходный пользователь еще не поставил лайк.
+     * Пользователи без общих фильмов не рассматриваются вовсе, число общих фильмов каждого пользователя
+     * равно числу его повторов в отсортированном массиве собранных по обратному индексу пользователей.
+     *
+     * @param userId ID пользователя
+     * @return отсортированный массив ID рекомендуемых фильмов, пустой, если похожих пользователей нет
+     */
+    public int[] getRecommendedFilms(int userId) {
+        return read(() -> {
+            int[] userFilms = filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+            int[] coLikers = collectCoLikers(userId, userFilms);
+            Arrays.sort(coLikers);
+            var bestMatches = new BestMatches(coLikers.length);
+            for (int i = 0; i < coLikers.length; ) {
+                int otherUserId = coLikers[i];
+                int common = 0;
+                while (i < coLikers.length && coLikers[i] == otherUserId) {
+                    common++;
+                    i++;
+                }
+                bestMatches.offer(otherUserId, common, filmsByUser.get(otherUserId).length);
+            }
+            return recommend(userFilms, bestMatches.users());
+        });
+    }
+
+    /**
+     * Метод возвращает ID фильмов, рекомендуемых пользователю, так же, как {@link #getRecommendedFilms(int)},
+     * но доля общих фильмов считается только для заданных кандидатов, например, найденных приближенным поиском.
+     *
+     * @param userId     ID пользователя
+     * @param candidates ID пользователей-кандидатов
+     * @return отсортированный массив ID рекомендуемых фильмов, пустой, если похожих пользователей нет
+     */
+    public int[] getRecommendedFilms(int userId, int[] candidates) {
+        return read(() -> {
+            int[] userFilms = filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+            var bestMatches = new BestMatches(candidates.length);
+            for (int otherUserId : candidates) {
+                int[] otherFilms = filmsByUser.get(otherUserId);
+                if (otherUserId != userId && otherFilms != null) {
+                    int common = SortedIntArrays.intersectionSize(userFilms, otherFilms);
+                    if (common > 0) {
+                        bestMatches.offer(otherUserId, common, otherFilms.length);
+                    }
+                }
+            }
+            return recommend(userFilms, bestMatches.users());
+        });
+    }
+
+    /**
+     * Метод собирает фильмы наиболее похожих пользователей, которым исходный пользователь еще не поставил лайк.
+     *
+     * @param userFilms    фильмы исходного пользователя
+     * @param similarUsers ID наиболее похожих пользователей
+     * @return отсортированный массив ID рекомендуемых фильмов
+     */
+    private int[] recommend(int[] userFilms, int[] similarUsers) {
+        if (similarUsers.length == 0) {
+            return SortedIntArrays.EMPTY;
+        }
+        int size = 0;
+        for (int similarUserId : similarUsers) {
+            size += filmsByUser.get(similarUserId).length;
+        }
+        int[] candidates = new int[size];
+        size = 0;
+        for (int similarUserId : similarUsers) {
+            int[] films = filmsByUser.get(similarUserId);
+            System.arraycopy(films, 0, candidates, size, films.length);
+            size += films.length;
+        }
+        return SortedIntArrays.difference(SortedIntArrays.sortedDistinct(candidates), userFilms);
+    }
+
+    /**
+     * Метод собирает из обратного индекса пользователей, поставивших лайк фильмам исходного пользователя.
+     * Каждый пользователь попадает в результат столько раз, сколько у него общих с исходным пользователем фильмов.
+     *
+     * @param userId    ID исходного пользователя
+     * @param userFilms фильмы исходного пользователя
+     * @return неотсортированный массив ID пользователей без исходного пользователя
+     */
+    private int[] collectCoLikers(int userId, int[] userFilms) {
+        int size = 0;
+        for (int filmId : userFilms) {
+            size += usersByFilm.get(filmId).length;
+        }
+        int[] coLikers = new int[size];
+        size = 0;
+        for (int filmId : userFilms) {
+            for (int otherUserId : usersByFilm.get(filmId)) {
+                if (otherUserId != userId) {
+                    coLikers[size++] = otherUserId;
+                }
+            }
+        }
+        return size == coLikers.length ? coLikers : Arrays.copyOf(coLikers, size);
+    }
+
+    private boolean insert(int userId, int filmId) {
+        int[] films = filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+        int[] updated = SortedIntArrays.insert(films, filmId);
+        if (updated == films) {
+            return false;
+        }
+        filmsByUser.put(userId, updated);
+        usersByFilm.put(filmId, SortedIntArrays.insert(
+                usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY), userId));
+        return true;
+    }
+
+    private boolean delete(int userId, int filmId) {
+        if (!remove(filmsByUser, userId, filmId)) {
+            return false;
+        }
+        remove(usersByFilm, filmId, userId);
+        return true;
+    }
+
+    private boolean remove(Map<Integer, int[]> index, int key, int value) {
+        int[] values = index.get(key);
+        if (values == null) {
+            return false;
+        }
+        int[] updated = SortedIntArrays.delete(values, value);
+        if (updated == values) {
+            return false;
+        }
+        if (updated.length == 0) {
+            index.remove(key);
+        } else {
+            index.put(key, updated);
+        }
+        return true;
+    }
+
+    private int[] toSortedArray(List<Integer> ids) {
+        return SortedIntArrays.sortedDistinct(ids.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Отбор пользователей с наибольшей долей общих фильмов среди всех своих лайков.
+     * Доли сравниваются точно, перекрестным умножением; все пользователи с наибольшей долей сохраняются.
+     */
+    private static class BestMatches {
+        private final int[] users;
+        private int count;
+        private long bestCommon;
+        private long bestTotal = 1;
+
+        BestMatches(int capacity) {
+            users = new int[capacity];
+        }
+
+        void offer(int userId, int common, int total) {
+            long comparison = common * bestTotal - bestCommon * total;
+            if (comparison > 0) {
+                bestCommon = common;
+                bestTotal = total;
+                count = 0;
+            }
+            if (comparison >= 0) {
+                users[count++] = userId;
+            }
+        }
+
+        int[] users() {
+            return Arrays.copyOf(users, count);
+        }
+    }
+}
@@ -1,14 +1,81 @@
 package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.entity.FeedCursor;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface EventRepository {
     void create(Event event);
 
+    void createAll(List<Event> events);
+
     Collection<Event> getAllFriendsEventsByUserId(int userId);
 
+    /**
+     * Метод возвращает страницу ленты событий пользователя в порядке времени и ID событий.
+     * Если задана только позиция before, возвращаются последние события перед ней.
+     *
+     * @param userId ID пользователя
+     * @param after  позиция, после которой начинается страница, или null
+     * @param before позиция, перед которой заканчивается страница, или null
+     * @param limit  размер страницы
+     * @return список событий, может быть пустым
+     */
+    List<Event> getFeedPage(int userId, FeedCursor after, FeedCursor before, int limit);
+
+    /**
+     * Метод возвращает ID самых старых событий, созданных раньше заданного времени.
+     *
+     * @param timestamp время, события раньше которого возвращаются
+     * @param limit     наибольшее количество ID
+     * @return список ID событий в порядке времени, может быть пустым
+     */
+    List<Integer> getEventIdsOlderThan(long timestamp, int limit);
+
+    /**
+     * Метод возвращает ID пользователей, у которых событий больше заданного количества.
+     *
+     * @param maxEvents допустимое количество событий пользователя
+     * @return список ID пользователей, может быть пустым
+     */
+    List<Integer> getUserIdsWithEventsOver(int maxEvents);
+
+    /**
+     * Метод возвращает ID самых новых событий пользователя из тех, что не входят в его maxEvents последних событий.
+     *
+     * @param userId    ID пользователя
+     * @param maxEvents количество последних событий пользователя, которые сохраняются
+     * @param limit     наибольшее количество ID
+     * @return список ID событий, может быть пустым
+     */
+    List<Integer> getEventIdsOverUserLimit(int userId, int maxEvents, int limit);
+
+    /**
+     * Метод переносит события в архив: копирует их в EVENTS_ARCHIVE и удаляет из ленты в одной транзакции.
+     *
+     * @param eventIds ID событий
+     * @return количество перенесенных событий
+     */
+    int archiveEvents(List<Integer> eventIds);
+
+    /**
+     * Метод удаляет события из ленты без переноса в архив.
+     *
+     * @param eventIds ID событий
+     * @return количество удаленных событий
+     */
+    int deleteEvents(List<Integer> eventIds);
+
+    /**
+     * Метод последовательно передает получателю все события архива в порядке их ID.
+     *
+     * @param consumer получатель событий
+     */
+    void streamArchivedEvents(Consumer<Event> consumer);
+
     void update(Event event);
 
     void delete(Event event);
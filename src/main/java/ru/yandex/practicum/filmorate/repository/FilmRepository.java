@@ -4,6 +4,7 @@ import ru.yandex.practicum.filmorate.entity.Film;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для служб, работающих с фильмотекой.
@@ -18,6 +19,14 @@ public interface FilmRepository {
      */
     Optional<Film> createFilm(Film film);
 
+    /**
+     * Метод пакетно создает записи о фильмах вместе с их жанрами и режиссерами.
+     *
+     * @param films записи о фильмах, которые нужно создать в фильмотеке
+     * @return эти же фильмы с новыми ID
+     */
+    List<Film> createFilms(List<Film> films);
+
     /**
      * Метод обновляет существующую запись о фильме
      *
@@ -33,6 +42,23 @@ public interface FilmRepository {
      */
     List<Film> getFilms();
 
+    /**
+     * Метод возвращает страницу записей о фильмах, упорядоченных по ID (keyset-пагинация).
+     *
+     * @param afterId ID последнего фильма предыдущей страницы, 0 - для первой страницы
+     * @param limit   максимальное количество фильмов на странице
+     * @return список фильмов с ID больше afterId, может быть пустым
+     */
+    List<Film> getFilmsPage(int afterId, int limit);
+
+    /**
+     * Метод последовательно передает получателю все записи о фильмах в порядке их ID,
+     * не загружая полный список фильмов в память.
+     *
+     * @param consumer получатель фильмов
+     */
+    void streamFilms(Consumer<Film> consumer);
+
     /**
      * Метод возвращает запись о фильме по его ID.
      *
@@ -41,6 +67,14 @@ public interface FilmRepository {
      */
     Optional<Film> getFilm(int filmId);
 
+    /**
+     * Метод проверяет, есть ли в БД фильм с указанным ID, не читая саму запись, жанры и режиссеров.
+     *
+     * @param filmId ID фильма
+     * @return true, если фильм есть в БД
+     */
+    boolean existsFilm(int filmId);
+
     /**
      * Метод возвращает список фильмов, которые соответствуют списку их ID
      *
@@ -86,6 +120,14 @@ public interface FilmRepository {
 
     void deleteFilmById(int filmId);
 
-    //Ищем в БД все фильмы по режисёру и названию фильма
-    List<Film> search(String title, String director);
+    /**
+     * Метод ищет фильмы по подстроке в названии и/или в имени режиссера.
+     *
+     * @param title    подстрока названия, пустая строка - поиск по названию не выполняется
+     * @param director подстрока имени режиссера, пустая строка - поиск по режиссеру не выполняется
+     * @param limit    максимальное количество найденных фильмов
+     * @param offset   количество пропускаемых найденных фильмов
+     * @return найденные фильмы в порядке убывания количества лайков
+     */
+    List<Film> search(String title, String director, int limit, int offset);
 }
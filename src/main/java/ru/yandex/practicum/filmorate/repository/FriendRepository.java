@@ -1,8 +1,7 @@
 package ru.yandex.practicum.filmorate.repository;
 
-import ru.yandex.practicum.filmorate.entity.User;
-
 import java.util.List;
+import java.util.Map;
 
 /**
  * Интерфейс для служб, работающих с различными комьюнити пользователей.
@@ -26,19 +25,9 @@ public interface FriendRepository {
     void deleteFriend(int firstUserId, int secondUserId);
 
     /**
-     * Метод возвращает список друзей выбранного пользователя.
+     * Метод возвращает все записи о дружбе.
      *
-     * @param userId ID выбранного пользователя
-     * @return список друзей (может быть пустым)
-     */
-    List<User> getFriends(int userId);
-
-    /**
-     * Метод возвращает список общих друзей двух пользователей.
-     *
-     * @param firstUserId  ID первого пользователя
-     * @param secondUserId ID второго пользователя
-     * @return список общих друзей (может быть пустым)
+     * @return ID друзей по ID пользователей, добавивших их в друзья
      */
-    List<User> getCommonFriends(int firstUserId, int secondUserId);
+    Map<Integer, List<Integer>> getAllFriendIds();
 }
@@ -7,10 +7,18 @@ import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.entity.FeedCursor;
 
 import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.STREAM_FETCH_SIZE;
 
 @Slf4j
 @Repository
@@ -22,12 +30,6 @@ public class JdbcEventRepository implements EventRepository {
     public void create(Event event) {
         log.info("Добавление события: {}", event);
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        if (event.getEventType().equals("REVIEW") && event.getOperation().equals("UPDATE")) {
-            var newEvent = jdbc.queryForObject("SELECT * FROM EVENTS WHERE (ENTITY_ID =:NEW_ENTITY_ID AND " +
-                            "EVENT_TYPE_NAME LIKE 'REVIEW' AND OPERATION_NAME LIKE 'ADD')",
-                    new MapSqlParameterSource("NEW_ENTITY_ID", event.getEntityId()), mapRow());
-            event.setUserId(newEvent.getUserId());
-        }
         jdbc.update("INSERT INTO EVENTS (TIMESTAMP, USER_ID, EVENT_TYPE_NAME," +
                 " OPERATION_NAME, ENTITY_ID) VALUES (:TIMESTAMP, :USER_ID," +
                 " :EVENT_TYPE_NAME, :OPERATION_NAME, :ENTITY_ID);", toMap(event), keyHolder, new String[]{"EVENT_ID"});
@@ -36,16 +38,142 @@ public class JdbcEventRepository implements EventRepository {
         log.info("Событие {} добавлено в БД", event);
     }
 
+    /**
+     * Метод добавляет события одним пакетным запросом. ID созданных событий в объекты не записываются.
+     *
+     * @param events добавляемые события
+     */
+    @Override
+    public void createAll(List<Event> events) {
+        log.info("Пакетное добавление {} событий", events.size());
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("INSERT INTO EVENTS (TIMESTAMP, USER_ID, EVENT_TYPE_NAME," +
+                        " OPERATION_NAME, ENTITY_ID) VALUES (:TIMESTAMP, :USER_ID," +
+                        " :EVENT_TYPE_NAME, :OPERATION_NAME, :ENTITY_ID);",
+                events.stream().map(this::toMap).toArray(MapSqlParameterSource[]::new));
+        log.info("Добавлено {} событий", events.size());
+    }
+
     @Override
     public Collection<Event> getAllFriendsEventsByUserId(int userId) {
         log.info("Получение всех событий друзей пользователя с ID = {}", userId);
-        var events = jdbc.query("SELECT * FROM EVENTS WHERE USER_ID = :USER_ID;",
+        var events = jdbc.query("SELECT * FROM EVENTS WHERE USER_ID = :USER_ID ORDER BY TIMESTAMP, EVENT_ID;",
                 new MapSqlParameterSource("USER_ID", userId), mapRow());
-        log.info("Получены события друзей пользователя с ID = {}", userId);
-        log.info(events.toString());
+        log.info("Получено {} событий друзей пользователя с ID = {}", events.size(), userId);
         return events;
     }
 
+    /**
+     * Метод возвращает страницу ленты событий пользователя. Условия на позиции и порядок сортировки
+     * совпадают с индексом EVENTS_USER_TIMESTAMP_IDX, поэтому читаются только строки страницы.
+     * Страница перед позицией before читается в обратном порядке и затем разворачивается.
+     */
+    @Override
+    public List<Event> getFeedPage(int userId, FeedCursor after, FeedCursor before, int limit) {
+        log.info("Получение страницы событий пользователя с ID = {} после {} и до {}, размер страницы {}",
+                userId, after, before, limit);
+        var params = new MapSqlParameterSource("USER_ID", userId).addValue("LIMIT", limit);
+        var sqlQuery = new StringBuilder("SELECT * FROM EVENTS WHERE USER_ID = :USER_ID");
+        if (after != null) {
+            sqlQuery.append(" AND (TIMESTAMP > :AFTER_TIMESTAMP" +
+                    " OR (TIMESTAMP = :AFTER_TIMESTAMP AND EVENT_ID > :AFTER_EVENT_ID))");
+            params.addValue("AFTER_TIMESTAMP", after.timestamp()).addValue("AFTER_EVENT_ID", after.eventId());
+        }
+        if (before != null) {
+            sqlQuery.append(" AND (TIMESTAMP < :BEFORE_TIMESTAMP" +
+                    " OR (TIMESTAMP = :BEFORE_TIMESTAMP AND EVENT_ID < :BEFORE_EVENT_ID))");
+            params.addValue("BEFORE_TIMESTAMP", before.timestamp()).addValue("BEFORE_EVENT_ID", before.eventId());
+        }
+        boolean backward = after == null && before != null;
+        sqlQuery.append(backward
+                ? " ORDER BY TIMESTAMP DESC, EVENT_ID DESC LIMIT :LIMIT;"
+                : " ORDER BY TIMESTAMP, EVENT_ID LIMIT :LIMIT;");
+        List<Event> events = new ArrayList<>(jdbc.query(sqlQuery.toString(), params, mapRow()));
+        if (backward) {
+            Collections.reverse(events);
+        }
+        log.info("Получено {} событий пользователя с ID = {}", events.size(), userId);
+        return events;
+    }
+
+    /**
+     * Метод читает ID по индексу EVENTS_TIMESTAMP_IDX, поэтому читаются только строки порции.
+     */
+    @Override
+    public List<Integer> getEventIdsOlderThan(long timestamp, int limit) {
+        log.info("Получение до {} ID событий старше {}", limit, timestamp);
+        return jdbc.queryForList("SELECT EVENT_ID FROM EVENTS WHERE TIMESTAMP < :TIMESTAMP" +
+                        " ORDER BY TIMESTAMP, EVENT_ID LIMIT :LIMIT;",
+                new MapSqlParameterSource("TIMESTAMP", timestamp).addValue("LIMIT", limit), Integer.class);
+    }
+
+    @Override
+    public List<Integer> getUserIdsWithEventsOver(int maxEvents) {
+        log.info("Получение пользователей, у которых больше {} событий", maxEvents);
+        return jdbc.queryForList("SELECT USER_ID FROM EVENTS GROUP BY USER_ID HAVING COUNT(*) > :MAX_EVENTS;",
+                new MapSqlParameterSource("MAX_EVENTS", maxEvents), Integer.class);
+    }
+
+    /**
+     * Метод пропускает maxEvents последних событий пользователя по индексу EVENTS_USER_TIMESTAMP_IDX
+     * и возвращает ID следующих за ними более старых событий.
+     */
+    @Override
+    public List<Integer> getEventIdsOverUserLimit(int userId, int maxEvents, int limit) {
+        log.info("Получение до {} ID событий пользователя с ID = {} сверх {} последних", limit, userId, maxEvents);
+        return jdbc.queryForList("SELECT EVENT_ID FROM EVENTS WHERE USER_ID = :USER_ID" +
+                        " ORDER BY TIMESTAMP DESC, EVENT_ID DESC LIMIT :LIMIT OFFSET :MAX_EVENTS;",
+                new MapSqlParameterSource("USER_ID", userId)
+                        .addValue("MAX_EVENTS", maxEvents)
+                        .addValue("LIMIT", limit), Integer.class);
+    }
+
+    @Override
+    @Transactional
+    public int archiveEvents(List<Integer> eventIds) {
+        log.info("Перенос {} событий в архив", eventIds.size());
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        var params = new MapSqlParameterSource("EVENT_IDS", eventIds);
+        jdbc.update("INSERT INTO EVENTS_ARCHIVE (EVENT_ID, TIMESTAMP, USER_ID, EVENT_TYPE_NAME," +
+                " OPERATION_NAME, ENTITY_ID) SELECT EVENT_ID, TIMESTAMP, USER_ID, EVENT_TYPE_NAME," +
+                " OPERATION_NAME, ENTITY_ID FROM EVENTS WHERE EVENT_ID IN (:EVENT_IDS);", params);
+        int archived = jdbc.update("DELETE FROM EVENTS WHERE EVENT_ID IN (:EVENT_IDS);", params);
+        log.info("В архив перенесено {} событий", archived);
+        return archived;
+    }
+
+    @Override
+    public int deleteEvents(List<Integer> eventIds) {
+        log.info("Удаление {} событий", eventIds.size());
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = jdbc.update("DELETE FROM EVENTS WHERE EVENT_ID IN (:EVENT_IDS);",
+                new MapSqlParameterSource("EVENT_IDS", eventIds));
+        log.info("Удалено {} событий", deleted);
+        return deleted;
+    }
+
+    /**
+     * Строки читаются из БД порциями по STREAM_FETCH_SIZE строк и в список не собираются.
+     */
+    @Override
+    public void streamArchivedEvents(Consumer<Event> consumer) {
+        log.info("Потоковое чтение архива событий из БД");
+        var mapper = mapRow();
+        jdbc.getJdbcOperations().query(connection -> {
+            var statement = connection.prepareStatement("SELECT * FROM EVENTS_ARCHIVE ORDER BY EVENT_ID;");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        });
+    }
+
     @Override
     public void update(Event event) {
         log.warn("Обновление события: {}", event);
@@ -8,7 +8,9 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.entity.Director;
 import ru.yandex.practicum.filmorate.entity.Film;
 import ru.yandex.practicum.filmorate.entity.Genre;
@@ -18,6 +20,10 @@ import ru.yandex.practicum.filmorate.exception.InternalServiceException;
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.STREAM_FETCH_SIZE;
 
 /**
  * Репозиторий, реализующий интерфейс {@link FilmRepository} для БД
@@ -27,6 +33,10 @@ import java.util.*;
 @Repository
 @RequiredArgsConstructor
 public class JdbcFilmRepository implements FilmRepository {
+    /**
+     * Максимальное количество ID фильмов в одном запросе на получение их жанров и режиссеров.
+     */
+    private static final int HYDRATION_CHUNK_SIZE = 1000;
     private final NamedParameterJdbcOperations jdbc;
     private final DataSource source;
     private final String thisService = this.getClass().getName();
@@ -38,6 +48,7 @@ public class JdbcFilmRepository implements FilmRepository {
      * @return новая запись о фильме с установленным ID из БД, либо пустое значение, если запись не создана
      */
     @Override
+    @Transactional
     public Optional<Film> createFilm(Film film) {
         log.info("Создание записи о фильме в БД");
         if (film == null) {
@@ -51,6 +62,7 @@ public class JdbcFilmRepository implements FilmRepository {
                 "FILM_DURATION", film.getDuration(),
                 "FILM_MPA_RATING_FK", film.getMpa().getId());
         var generatedID = simpleJdbc.withTableName("FILMS")
+                .usingColumns(parameters.keySet().toArray(String[]::new))
                 .usingGeneratedKeyColumns("FILM_ID_PK")
                 .executeAndReturnKey(parameters).intValue();
         if (generatedID <= 0) {
@@ -58,13 +70,82 @@ public class JdbcFilmRepository implements FilmRepository {
             return Optional.empty();
         } else {
             film.setId(generatedID);
-            updateFilmsGenresTable(film);
-            updateFilmsDirectorsTable(film);
+            updateFilmsGenresTable(film, true);
+            updateFilmsDirectorsTable(film, true);
             log.info("Запись о фильме ID = {} успешно создана в БД", generatedID);
             return Optional.of(film);
         }
     }
 
+    /**
+     * Метод пакетно создает записи о фильмах в БД: строки FILMS, FILMS_GENRES и FILMS_DIRECTORS
+     * записываются тремя пакетными запросами в одной транзакции.
+     *
+     * @param films записи о фильмах, которые нужно создать в БД
+     * @return эти же фильмы с установленными ID из БД
+     */
+    @Override
+    @Transactional
+    public List<Film> createFilms(List<Film> films) {
+        log.info("Пакетное создание записей о {} фильмах в БД", films.size());
+        if (films.isEmpty()) {
+            return films;
+        }
+        var filmParameters = films.stream()
+                .map(film -> new MapSqlParameterSource()
+                        .addValue("name", film.getName())
+                        .addValue("description", film.getDescription())
+                        .addValue("releaseDate", film.getReleaseDate())
+                        .addValue("duration", film.getDuration())
+                        .addValue("mpaId", film.getMpa().getId()))
+                .toArray(MapSqlParameterSource[]::new);
+        var keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate("""
+                        insert into FILMS (FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION,
+                        FILM_MPA_RATING_FK)
+                        values (:name, :description, :releaseDate, :duration, :mpaId)""",
+                filmParameters, keyHolder, new String[]{"FILM_ID_PK"});
+        var keys = keyHolder.getKeyList();
+        if (keys.size() != films.size()) {
+            String error = "Ошибка! БД вернула " + keys.size() + " ID для " + films.size() + " фильмов";
+            log.error(error);
+            throw new InternalServiceException(thisService, jdbc.getClass().getName(), error);
+        }
+        List<MapSqlParameterSource> genreParameters = new ArrayList<>();
+        List<MapSqlParameterSource> directorParameters = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            var film = films.get(i);
+            int filmId = ((Number) keys.get(i).values().iterator().next()).intValue();
+            film.setId(filmId);
+            if (film.getGenres() != null) {
+                film.getGenres().stream().map(Genre::getId).distinct().forEach(genreId ->
+                        genreParameters.add(new MapSqlParameterSource()
+                                .addValue("filmId", filmId)
+                                .addValue("genreId", genreId)));
+            }
+            if (film.getDirectors() != null) {
+                film.getDirectors().stream().map(Director::getId).distinct().forEach(directorId ->
+                        directorParameters.add(new MapSqlParameterSource()
+                                .addValue("filmId", filmId)
+                                .addValue("directorId", directorId)));
+            }
+        }
+        if (!genreParameters.isEmpty()) {
+            jdbc.batchUpdate("""
+                            insert into FILMS_GENRES (FG_FILM_ID, FG_GENRE_ID)
+                            values (:filmId, :genreId)""",
+                    genreParameters.toArray(MapSqlParameterSource[]::new));
+        }
+        if (!directorParameters.isEmpty()) {
+            jdbc.batchUpdate("""
+                            insert into FILMS_DIRECTORS (FD_FILM_ID, FD_DIRECTOR_ID)
+                            values (:filmId, :directorId)""",
+                    directorParameters.toArray(MapSqlParameterSource[]::new));
+        }
+        log.info("Пакетно созданы записи о {} фильмах в БД", films.size());
+        return films;
+    }
+
     /**
      * Метод обновляет существующую запись о фильме в БД.
      *
@@ -72,6 +153,7 @@ public class JdbcFilmRepository implements FilmRepository {
      * @return обновленная запись о фильме, либо пустое значение, если запись не была найдена в БД.
      */
     @Override
+    @Transactional
     public Optional<Film> updateFilm(Film film) {
         log.info("Обновление записи о фильме в БД");
         int filmId = film.getId();
@@ -96,8 +178,8 @@ public class JdbcFilmRepository implements FilmRepository {
             log.warn("Запись не найдена в БД");
             return Optional.empty();
         } else {
-            updateFilmsGenresTable(film);
-            updateFilmsDirectorsTable(film);
+            updateFilmsGenresTable(film, false);
+            updateFilmsDirectorsTable(film, false);
             log.info("Запись о фильме ID = {} успешно обновлена в БД", filmId);
             return Optional.of(film);
         }
@@ -114,10 +196,64 @@ public class JdbcFilmRepository implements FilmRepository {
         String sqlQuery = """
                 select *,
                 (SELECT MPA_RATING_NAME FROM MPA_RATINGS WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME,
-                (select count(FR_FILM_ID_PK) from FILMS_RATINGS where FR_FILM_ID_PK = FILM_ID_PK) as RATE
+                FILM_LIKE_COUNT as RATE
                 from FILMS
                 order by FILM_ID_PK""";
-        return jdbc.query(sqlQuery, filmMapper());
+        return hydrate(jdbc.query(sqlQuery, filmMapper()));
+    }
+
+    /**
+     * Метод возвращает страницу записей о фильмах, упорядоченных по ID. Страница выбирается условием
+     * по первичному ключу, поэтому стоимость запроса не зависит от номера страницы.
+     *
+     * @param afterId ID последнего фильма предыдущей страницы, 0 - для первой страницы
+     * @param limit   максимальное количество фильмов на странице
+     * @return список фильмов с ID больше afterId, может быть пустым
+     */
+    @Override
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        log.info("Чтение страницы фильмов из БД после ID {}, размер страницы {}", afterId, limit);
+        String sqlQuery = """
+                select *,
+                (SELECT MPA_RATING_NAME FROM MPA_RATINGS WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME,
+                FILM_LIKE_COUNT as RATE
+                from FILMS
+                where FILM_ID_PK > :afterId
+                order by FILM_ID_PK
+                limit :limit""";
+        return hydrate(jdbc.query(sqlQuery, Map.of("afterId", afterId, "limit", limit), filmMapper()));
+    }
+
+    /**
+     * Метод последовательно передает получателю все записи о фильмах в порядке их ID. Строки читаются
+     * из БД порциями по STREAM_FETCH_SIZE строк, и каждая порция дозаполняется
+     * жанрами и режиссерами перед передачей получателю, поэтому в памяти находится не больше одной порции.
+     *
+     * @param consumer получатель фильмов
+     */
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        log.info("Потоковое чтение всех фильмов из БД");
+        String sqlQuery = """
+                select *,
+                (SELECT MPA_RATING_NAME FROM MPA_RATINGS WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME,
+                FILM_LIKE_COUNT as RATE
+                from FILMS
+                order by FILM_ID_PK""";
+        var mapper = filmMapper();
+        List<Film> batch = new ArrayList<>(STREAM_FETCH_SIZE);
+        jdbc.getJdbcOperations().query(connection -> {
+            var statement = connection.prepareStatement(sqlQuery);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            batch.add(mapper.mapRow(rs, rs.getRow()));
+            if (batch.size() == STREAM_FETCH_SIZE) {
+                hydrate(batch).forEach(consumer);
+                batch.clear();
+            }
+        });
+        hydrate(batch).forEach(consumer);
     }
 
     /**
@@ -131,9 +267,7 @@ public class JdbcFilmRepository implements FilmRepository {
         log.info("Чтение записи о фильме из БД");
         String sqlQuery = """
                 select *,
-                    (select count(FR_USER_ID_PK)
-                    from FILMS_RATINGS
-                    where FR_FILM_ID_PK = :filmId) as RATE,
+                    FILM_LIKE_COUNT as RATE,
                     (SELECT MPA_RATING_NAME FROM MPA_RATINGS WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME
                     from FILMS
                     where FILM_ID_PK = :filmId""";
@@ -145,6 +279,7 @@ public class JdbcFilmRepository implements FilmRepository {
                 log.error(error);
                 throw new InternalServiceException(thisService, jdbc.getClass().getName(), error);
             }
+            hydrate(List.of(film));
             return Optional.of(film);
         } catch (EmptyResultDataAccessException e) {
             log.warn("Фильм с ID {} не найден в БД", filmId);
@@ -152,6 +287,19 @@ public class JdbcFilmRepository implements FilmRepository {
         }
     }
 
+    /**
+     * Метод проверяет наличие фильма одним запросом по первичному ключу.
+     *
+     * @param filmId ID фильма
+     * @return true, если фильм есть в БД
+     */
+    @Override
+    public boolean existsFilm(int filmId) {
+        log.info("Проверка наличия фильма ID {} в БД", filmId);
+        String sqlQuery = "select exists(select 1 from FILMS where FILM_ID_PK = :filmId)";
+        return Boolean.TRUE.equals(jdbc.queryForObject(sqlQuery, Map.of("filmId", filmId), Boolean.class));
+    }
+
     /**
      * Метод возвращает список фильмов из БД с указанными ID.
      *
@@ -164,20 +312,14 @@ public class JdbcFilmRepository implements FilmRepository {
         if (filmsIds.isEmpty())
             return new ArrayList<>();
 
-        StringBuilder ids = new StringBuilder();
-        for (int i = 0; i < filmsIds.size() - 1; i++) {
-            ids.append(filmsIds.get(i)).append(", ");
-        }
-        ids.append(filmsIds.getLast());
-
         String sqlQuery = """
                 select *,
                 (SELECT MPA_RATING_NAME FROM MPA_RATINGS WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME,
-                (select count(FR_FILM_ID_PK) from FILMS_RATINGS where FR_FILM_ID_PK = FILM_ID_PK) as RATE
+                FILM_LIKE_COUNT as RATE
                 from FILMS
-                where FILM_ID_PK IN(""" + ids + ")" +
-                "order by FILM_ID_PK";
-        return jdbc.query(sqlQuery, filmMapper());
+                where FILM_ID_PK in (:filmIds)
+                order by FILM_ID_PK""";
+        return hydrate(jdbc.query(sqlQuery, Map.of("filmIds", filmsIds), filmMapper()));
     }
 
     /**
@@ -205,9 +347,7 @@ public class JdbcFilmRepository implements FilmRepository {
         MapSqlParameterSource params = new MapSqlParameterSource();
         String sqlQuery = """
                 select *,
-                (select count(FR_USER_ID_PK)
-                        from FILMS_RATINGS
-                        where FR_FILM_ID_PK = FILM_ID_PK) as RATE,
+                FILM_LIKE_COUNT as RATE,
                 (SELECT MPA_RATING_NAME
                         FROM MPA_RATINGS
                         WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME
@@ -215,14 +355,14 @@ public class JdbcFilmRepository implements FilmRepository {
                  WHERE nvl(:year, EXTRACT(YEAR FROM f.FILM_RELEASE_DATE)) = EXTRACT(YEAR FROM f.FILM_RELEASE_DATE)
                    AND (EXISTS(SELECT 1 FROM FILMS_GENRES fg
                                 WHERE fg.fg_film_id = FILM_ID_PK AND fg.fg_genre_id = :genre_id) OR :genre_id IS null)
-                order by RATE desc""";
+                order by FILM_LIKE_COUNT desc, FILM_ID_PK""";
         if (topSize != null) {
             sqlQuery += " limit :topSize";
             params.addValue("topSize", topSize);
         }
         params.addValue("genre_id", genreId);
         params.addValue("year", year);
-        return jdbc.query(sqlQuery, params, filmMapper());
+        return hydrate(jdbc.query(sqlQuery, params, filmMapper()));
     }
 
     /**
@@ -235,9 +375,7 @@ public class JdbcFilmRepository implements FilmRepository {
     public List<Film> findFilmsForDirectorByConditions(int directorId, String conditions) {
         String sqlQuery = """
                 select *,
-                (select count(FR_USER_ID_PK)
-                        from FILMS_RATINGS
-                        where FR_FILM_ID_PK = FILM_ID_PK) as RATE,
+                FILM_LIKE_COUNT as RATE,
                 (SELECT MPA_RATING_NAME
                         FROM MPA_RATINGS
                         WHERE MPA_RATING_ID_PK = FILM_MPA_RATING_FK) AS MPA_NAME
@@ -246,83 +384,152 @@ public class JdbcFilmRepository implements FilmRepository {
                 join DIRECTORS on FD_DIRECTOR_ID = DIRECTOR_ID_PK
                 where DIRECTOR_ID_PK = :directorId""";
         sqlQuery = sqlQuery.concat(conditions);
-        return jdbc.query(sqlQuery, Map.of("directorId", directorId), filmMapper());
+        return hydrate(jdbc.query(sqlQuery, Map.of("directorId", directorId), filmMapper()));
     }
 
     /**
-     * Метод обновляет информацию в репозитории о списке жанров указанного фильма
+     * Метод обновляет информацию в репозитории о списке жанров указанного фильма.
+     * Удаляются и добавляются пакетно только изменившиеся связи.
      *
-     * @param film фильм, из которого берется список его жанров
+     * @param film      фильм, из которого берется список его жанров
+     * @param isNewFilm true, если фильм только что создан и связей в БД у него еще нет
      */
-    private void updateFilmsGenresTable(Film film) {
-        String sqlQuery = """
-                delete from FILMS_GENRES
-                where FG_FILM_ID = :filmId""";
-        jdbc.update(sqlQuery, new MapSqlParameterSource().addValue("filmId", film.getId()));
-        sqlQuery = """
-                insert into FILMS_GENRES (FG_FILM_ID, FG_GENRE_ID)
-                values (:filmId, :genreId)""";
-        int id = film.getId();
-        for (var genre : film.getGenres()) {
-            jdbc.update(sqlQuery, new MapSqlParameterSource()
-                    .addValue("filmId", id)
-                    .addValue("genreId", genre.getId()));
+    private void updateFilmsGenresTable(Film film, boolean isNewFilm) {
+        int filmId = film.getId();
+        Set<Integer> genreIds = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().forEach(genre -> genreIds.add(genre.getId()));
         }
+        List<Integer> currentGenreIds = isNewFilm ? List.of() : jdbc.queryForList("""
+                select FG_GENRE_ID
+                from FILMS_GENRES
+                where FG_FILM_ID = :filmId""", Map.of("filmId", filmId), Integer.class);
+        updateLinks(filmId, "genreId", currentGenreIds, genreIds,
+                """
+                        delete from FILMS_GENRES
+                        where FG_FILM_ID = :filmId and FG_GENRE_ID = :genreId""",
+                """
+                        insert into FILMS_GENRES (FG_FILM_ID, FG_GENRE_ID)
+                        values (:filmId, :genreId)""");
     }
 
     /**
-     * Метод обновляет информацию в репозитории о списке режиссеров указанного фильма
+     * Метод обновляет информацию в репозитории о списке режиссеров указанного фильма.
+     * Удаляются и добавляются пакетно только изменившиеся связи.
      *
-     * @param film фильм, из которого берется список его режиссеров
+     * @param film      фильм, из которого берется список его режиссеров
+     * @param isNewFilm true, если фильм только что создан и связей в БД у него еще нет
      */
-    private void updateFilmsDirectorsTable(Film film) {
-        int id = film.getId();
-        String sqlQuery = """
-                delete from FILMS_DIRECTORS
-                where FD_FILM_ID = :filmId""";
-        jdbc.update(sqlQuery, new MapSqlParameterSource().addValue("filmId", id));
-        sqlQuery = """
-                insert into FILMS_DIRECTORS (FD_FILM_ID, FD_DIRECTOR_ID)
-                values (:filmId, :directorId)""";
-        for (var director : film.getDirectors()) {
-            jdbc.update(sqlQuery, new MapSqlParameterSource()
-                    .addValue("filmId", id)
-                    .addValue("directorId", director.getId()));
+    private void updateFilmsDirectorsTable(Film film, boolean isNewFilm) {
+        int filmId = film.getId();
+        Set<Integer> directorIds = new LinkedHashSet<>();
+        if (film.getDirectors() != null) {
+            film.getDirectors().forEach(director -> directorIds.add(director.getId()));
+        }
+        List<Integer> currentDirectorIds = isNewFilm ? List.of() : jdbc.queryForList("""
+                select FD_DIRECTOR_ID
+                from FILMS_DIRECTORS
+                where FD_FILM_ID = :filmId""", Map.of("filmId", filmId), Integer.class);
+        updateLinks(filmId, "directorId", currentDirectorIds, directorIds,
+                """
+                        delete from FILMS_DIRECTORS
+                        where FD_FILM_ID = :filmId and FD_DIRECTOR_ID = :directorId""",
+                """
+                        insert into FILMS_DIRECTORS (FD_FILM_ID, FD_DIRECTOR_ID)
+                        values (:filmId, :directorId)""");
+    }
+
+    /**
+     * Метод приводит связи фильма в БД к новому набору: лишние связи удаляются, недостающие добавляются,
+     * каждая группа - одним пакетным запросом.
+     *
+     * @param filmId      ID фильма
+     * @param linkParam   имя параметра запросов с ID связанной сущности
+     * @param currentIds  ID связанных сущностей, имеющиеся в БД
+     * @param newIds      ID связанных сущностей, которые должны остаться после обновления
+     * @param deleteQuery запрос на удаление одной связи
+     * @param insertQuery запрос на добавление одной связи
+     */
+    private void updateLinks(int filmId, String linkParam, Collection<Integer> currentIds, Set<Integer> newIds,
+                             String deleteQuery, String insertQuery) {
+        var removedIds = currentIds.stream().filter(id -> !newIds.contains(id)).toList();
+        var addedIds = newIds.stream().filter(id -> !currentIds.contains(id)).toList();
+        if (!removedIds.isEmpty()) {
+            jdbc.batchUpdate(deleteQuery, linkParameters(filmId, linkParam, removedIds));
         }
+        if (!addedIds.isEmpty()) {
+            jdbc.batchUpdate(insertQuery, linkParameters(filmId, linkParam, addedIds));
+        }
+    }
+
+    private MapSqlParameterSource[] linkParameters(int filmId, String linkParam, List<Integer> linkIds) {
+        return linkIds.stream()
+                .map(linkId -> new MapSqlParameterSource()
+                        .addValue("filmId", filmId)
+                        .addValue(linkParam, linkId))
+                .toArray(MapSqlParameterSource[]::new);
     }
 
     /**
-     * Метод получает список жанров фильма из БД.
+     * Метод дозаполняет фильмы их жанрами и режиссерами. Связи читаются из БД пакетно для всего набора ID
+     * фильмов (по {@link #HYDRATION_CHUNK_SIZE} ID в одном запросе), а не отдельными запросами для каждого фильма.
+     * Если в списке несколько экземпляров одного фильма, заполняется каждый из них.
      *
-     * @param filmId ID фильма
-     * @return список жанров
+     * @param films список фильмов, прочитанных из БД
+     * @return этот же список фильмов с заполненными жанрами и режиссерами
+     */
+    private List<Film> hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Integer, List<Film>> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.computeIfAbsent(film.getId(), id -> new ArrayList<>(1)).add(film));
+        List<Integer> filmIds = new ArrayList<>(filmsById.keySet());
+        log.info("Получение жанров и режиссеров для {} фильмов из БД", filmIds.size());
+        for (int from = 0; from < filmIds.size(); from += HYDRATION_CHUNK_SIZE) {
+            var chunk = filmIds.subList(from, Math.min(from + HYDRATION_CHUNK_SIZE, filmIds.size()));
+            getFilmsGenresFromDb(chunk, (filmId, genre) ->
+                    filmsById.get(filmId).forEach(film -> film.getGenres().add(genre)));
+            getFilmsDirectorsFromDb(chunk, (filmId, director) ->
+                    filmsById.get(filmId).forEach(film -> film.getDirectors().add(director)));
+        }
+        return films;
+    }
+
+    /**
+     * Метод получает из БД жанры указанных фильмов одним запросом.
+     *
+     * @param filmIds  список ID фильмов
+     * @param consumer получатель пар "ID фильма - жанр", жанры каждого фильма передаются в порядке их ID
      */
-    private List<Genre> getFilmGenresFromDb(int filmId) {
-        log.info("Получение списка жанров фильма ID {} из БД", filmId);
+    private void getFilmsGenresFromDb(List<Integer> filmIds, BiConsumer<Integer, Genre> consumer) {
         String sqlQuery = """
-                select FG_GENRE_ID as ID, GENRE_NAME as NAME
+                select FG_FILM_ID, FG_GENRE_ID as ID, GENRE_NAME as NAME
                 from FILMS_GENRES
                 join GENRES on GENRE_ID_PK = FG_GENRE_ID
-                where FG_FILM_ID = :filmId
-                order by ID""";
-        return jdbc.query(sqlQuery, Map.of("filmId", filmId), genreMapper());
+                where FG_FILM_ID in (:filmIds)
+                order by FG_FILM_ID, ID""";
+        jdbc.query(sqlQuery, Map.of("filmIds", filmIds), (ResultSet rs) -> {
+            consumer.accept(rs.getInt("FG_FILM_ID"), genreMapper().mapRow(rs, rs.getRow()));
+        });
     }
 
     /**
-     * Метод получает список режиссеров фильма из БД.
+     * Метод получает из БД режиссеров указанных фильмов одним запросом.
      *
-     * @param filmId ID фильма
-     * @return список режиссеров
+     * @param filmIds  список ID фильмов
+     * @param consumer получатель пар "ID фильма - режиссер", режиссеры каждого фильма передаются в порядке их ID
      */
-    private Set<Director> getFilmDirectorsFromDb(int filmId) {
-        log.info("Получение списка режиссеров фильма ID {} из БД", filmId);
+    private void getFilmsDirectorsFromDb(List<Integer> filmIds, BiConsumer<Integer, Director> consumer) {
         String sqlQuery = """
-                select FD_DIRECTOR_ID as ID, DIRECTOR_NAME as NAME
+                select FD_FILM_ID, FD_DIRECTOR_ID as ID, DIRECTOR_NAME as NAME
                 from FILMS_DIRECTORS
                 join DIRECTORS on DIRECTOR_ID_PK = FD_DIRECTOR_ID
-                where FD_FILM_ID = :filmId
-                order by ID""";
-        return new HashSet<>(jdbc.query(sqlQuery, Map.of("filmId", filmId), directorMapper()));
+                where FD_FILM_ID in (:filmIds)
+                order by FD_FILM_ID, ID""";
+        jdbc.query(sqlQuery, Map.of("filmIds", filmIds), (ResultSet rs) -> {
+            consumer.accept(rs.getInt("FD_FILM_ID"), directorMapper().mapRow(rs, rs.getRow()));
+        });
     }
 
     /**
@@ -337,7 +544,7 @@ public class JdbcFilmRepository implements FilmRepository {
         String sqlQuery =
                 "SELECT *," +
                         "(SELECT mpa_rating_name FROM mpa_ratings WHERE mpa_rating_id_pk = film_mpa_rating_fk) AS mpa_name," +
-                        "(SELECT COUNT(fr_film_id_pk) FROM films_ratings WHERE fr_film_id_pk = film_id_pk) AS rate " +
+                        "film_like_count AS rate " +
                         "FROM films " +
                         "WHERE film_id_pk IN(" +
                         "SELECT fr_film_id_pk " +
@@ -349,11 +556,11 @@ public class JdbcFilmRepository implements FilmRepository {
                         "WHERE fr_user_id_pk = :userId)" +
                         "AND fr_film_id_pk IN(SELECT fr_film_id_pk FROM films_ratings fr3 " +
                         "WHERE fr_user_id_pk = :friendId))))" +
-                        "ORDER BY rate DESC";
+                        "ORDER BY film_like_count DESC, film_id_pk";
 
-        return jdbc.query(sqlQuery,
+        return hydrate(jdbc.query(sqlQuery,
                 Map.of("userId", userId, "friendId", friendId),
-                filmMapper());
+                filmMapper()));
     }
 
     @Override
@@ -386,80 +593,87 @@ public class JdbcFilmRepository implements FilmRepository {
                 rs.getInt("FILM_DURATION"),
                 rs.getInt("RATE"),
                 new Mpa(rs.getInt("FILM_MPA_RATING_FK"), rs.getString("MPA_NAME")),
-                getFilmGenresFromDb(rs.getInt("FILM_ID_PK")),
-                getFilmDirectorsFromDb(rs.getInt(("FILM_ID_PK"))));
+                new ArrayList<>(),
+                new LinkedHashSet<>());
     }
 
-    //Ищем в БД все фильмы по режисёру и названию фильма
+    /**
+     * Метод ищет фильмы по подстроке в названии и/или в имени режиссера за один запрос к БД.
+     * Страница найденных фильмов выбирается подзапросом, к которому присоединяются MPA-рейтинг,
+     * жанры и режиссеры фильмов; строки результата собираются в фильмы в порядке их следования.
+     *
+     * @param title    подстрока названия, пустая строка - поиск по названию не выполняется
+     * @param director подстрока имени режиссера, пустая строка - поиск по режиссеру не выполняется
+     * @param limit    максимальное количество найденных фильмов
+     * @param offset   количество пропускаемых найденных фильмов
+     * @return найденные фильмы в порядке убывания количества лайков
+     */
     @Override
-    public List<Film> search(String title, String director) {
-
-        log.info("Параметры на вход title ={} и director = {}", title, director);
-        String sqlSelect = "";
-        List<Film> filmsLilst = new ArrayList<>();
-        Map<String, Object> params = new HashMap<>();
-
-        if (title.isEmpty() && !director.isEmpty()) {
-            log.info("Сработало правило title.isEmpty()");
-            sqlSelect = """
-                    SELECT FILM_ID_PK FROM (SELECT f.*
-                    FROM FILMS f
-                    LEFT JOIN (SELECT FR_FILM_ID_PK, COUNT(*) AS num_likes
-                    FROM FILMS_RATINGS
-                    GROUP BY FR_FILM_ID_PK) r ON f.FILM_ID_PK = r.FR_FILM_ID_PK
-                    LEFT JOIN FILMS_DIRECTORS fd ON f.FILM_ID_PK = fd.FD_FILM_ID
-                    LEFT JOIN DIRECTORS d ON fd.FD_DIRECTOR_ID = d.DIRECTOR_ID_PK
-                    WHERE LOWER(d.DIRECTOR_NAME) LIKE LOWER(:directorName)
-                    ORDER BY r.num_likes DESC)
-                    """;
-            params.put("directorName", "%" + director + "%");
-        }
-        if (director.isEmpty() && !title.isEmpty()) {
-            log.info("Сработало правило director.isEmpty()");
-            sqlSelect = """
-                    SELECT FILM_ID_PK FROM (SELECT f.*
-                    FROM FILMS f
-                    LEFT JOIN (SELECT FR_FILM_ID_PK, COUNT(*) AS num_likes
-                    FROM FILMS_RATINGS
-                    GROUP BY FR_FILM_ID_PK) r ON f.FILM_ID_PK = r.FR_FILM_ID_PK
-                    LEFT JOIN FILMS_DIRECTORS fd ON f.FILM_ID_PK = fd.FD_FILM_ID
-                    LEFT JOIN DIRECTORS d ON fd.FD_DIRECTOR_ID = d.DIRECTOR_ID_PK
-                    WHERE LOWER(f.FILM_NAME) LIKE LOWER(:filmName)
-                    ORDER BY r.num_likes DESC)
-                    """;
-
-            params.put("filmName", "%" + title + "%");
+    public List<Film> search(String title, String director, int limit, int offset) {
+        log.info("Поиск фильмов в БД: title = {}, director = {}, limit = {}, offset = {}",
+                title, director, limit, offset);
+        List<String> conditions = new ArrayList<>();
+        var params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        if (!title.isEmpty()) {
+            conditions.add("LOWER(FILM_NAME) LIKE LOWER(:filmName) ESCAPE '\\'");
+            params.addValue("filmName", containsPattern(title));
         }
-        if (!title.isBlank() && !director.isBlank()) {
-            log.info("Сработало правило !title.isBlank() && !director.isBlank()");
-            sqlSelect = """
-                                SELECT FILM_ID_PK FROM (SELECT f.*
-                                 FROM FILMS f
-                                 LEFT JOIN (SELECT FR_FILM_ID_PK, COUNT(*) AS num_likes
-                                 FROM FILMS_RATINGS
-                                 GROUP BY FR_FILM_ID_PK) r ON f.FILM_ID_PK = r.FR_FILM_ID_PK
-                                 LEFT JOIN FILMS_DIRECTORS fd ON f.FILM_ID_PK = fd.FD_FILM_ID
-                                 LEFT JOIN DIRECTORS d ON fd.FD_DIRECTOR_ID = d.DIRECTOR_ID_PK
-                                 WHERE FILM_ID_PK IN
-                                (SELECT f.FILM_ID_PK FROM FILMS f WHERE
-                                                   LOWER( FILM_NAME ) LIKE
-                                            LOWER (:filmName) OR  (LOWER(DIRECTOR_NAME) LIKE LOWER(:directorName)))
-                                 ORDER BY r.num_likes DESC) AS cmplx
-                                """;
-            params.put("filmName", "%" + title + "%");
-            params.put("directorName", "%" + director + "%");
-
+        if (!director.isEmpty()) {
+            conditions.add("""
+                    EXISTS (SELECT 1 FROM FILMS_DIRECTORS
+                            JOIN DIRECTORS ON DIRECTOR_ID_PK = FD_DIRECTOR_ID
+                            WHERE FD_FILM_ID = FILM_ID_PK
+                              AND LOWER(DIRECTOR_NAME) LIKE LOWER(:directorName) ESCAPE '\\')""");
+            params.addValue("directorName", containsPattern(director));
         }
-
-        jdbc.query(sqlSelect, params, getIntFromDb());
-        List<Integer> filmIdLilst = jdbc.query(sqlSelect, params, getIntFromDb());
-        for (Integer filmId : filmIdLilst) {
-            filmsLilst.add(getFilm(filmId).get());
+        if (conditions.isEmpty()) {
+            return new ArrayList<>();
         }
-        return filmsLilst;
+        String sqlQuery = """
+                SELECT f.*, m.MPA_RATING_NAME AS MPA_NAME, f.FILM_LIKE_COUNT AS RATE,
+                       g.GENRE_ID_PK AS GENRE_ID, g.GENRE_NAME, d.DIRECTOR_ID_PK AS DIRECTOR_ID, d.DIRECTOR_NAME
+                FROM (SELECT * FROM FILMS
+                      WHERE %s
+                      ORDER BY FILM_LIKE_COUNT DESC, FILM_ID_PK
+                      LIMIT :limit OFFSET :offset) f
+                LEFT JOIN MPA_RATINGS m ON m.MPA_RATING_ID_PK = f.FILM_MPA_RATING_FK
+                LEFT JOIN FILMS_GENRES fg ON fg.FG_FILM_ID = f.FILM_ID_PK
+                LEFT JOIN GENRES g ON g.GENRE_ID_PK = fg.FG_GENRE_ID
+                LEFT JOIN FILMS_DIRECTORS fd ON fd.FD_FILM_ID = f.FILM_ID_PK
+                LEFT JOIN DIRECTORS d ON d.DIRECTOR_ID_PK = fd.FD_DIRECTOR_ID
+                ORDER BY f.FILM_LIKE_COUNT DESC, f.FILM_ID_PK, g.GENRE_ID_PK, d.DIRECTOR_ID_PK"""
+                .formatted(String.join(" OR ", conditions));
+        Map<Integer, Film> foundFilms = new LinkedHashMap<>();
+        var mapper = filmMapper();
+        jdbc.query(sqlQuery, params, (ResultSet rs) -> {
+            var film = foundFilms.get(rs.getInt("FILM_ID_PK"));
+            if (film == null) {
+                film = mapper.mapRow(rs, rs.getRow());
+                foundFilms.put(film.getId(), film);
+            }
+            int genreId = rs.getInt("GENRE_ID");
+            if (!rs.wasNull() && film.getGenres().stream().noneMatch(genre -> genre.getId() == genreId)) {
+                film.getGenres().add(new Genre(genreId, rs.getString("GENRE_NAME")));
+            }
+            int directorId = rs.getInt("DIRECTOR_ID");
+            if (!rs.wasNull()) {
+                film.getDirectors().add(new Director(directorId, rs.getString("DIRECTOR_NAME")));
+            }
+        });
+        log.info("Найдено фильмов: {}", foundFilms.size());
+        return new ArrayList<>(foundFilms.values());
     }
 
-    private RowMapper<Integer> getIntFromDb() {
-        return (ResultSet rs, int rowNum) -> rs.getInt("FILM_ID_PK");
+    /**
+     * Метод составляет шаблон LIKE для поиска подстроки: символы %, _ и \ экранируются,
+     * поэтому подстрока ищется буквально, так же, как в индексе поиска.
+     *
+     * @param substring искомая подстрока
+     * @return шаблон LIKE для использования с ESCAPE '\'
+     */
+    private String containsPattern(String substring) {
+        return "%" + substring.replaceAll("([\\\\%_])", "\\\\$1") + "%";
     }
 }
\ No newline at end of file
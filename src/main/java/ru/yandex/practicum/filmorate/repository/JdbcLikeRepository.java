@@ -5,21 +5,25 @@ import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsertOperations;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.entity.Like;
+import ru.yandex.practicum.filmorate.entity.LikeOperation;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult.Status;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.InternalServiceException;
 
-import javax.sql.DataSource;
 import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Valid
@@ -27,43 +31,56 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class JdbcLikeRepository implements LikeRepository {
     private final NamedParameterJdbcOperations jdbc;
-    private final DataSource jdbcTemplate;
     private final String thisService = this.getClass().getName();
     private final String idError = "Ошибка! ID пользователя может быть только положительным значением";
 
     /**
-     * Пользователь ставит лайк фильму.
+     * Пользователь ставит лайк фильму. Счетчик лайков фильма увеличивается в той же транзакции,
+     * и только если лайк действительно добавлен.
      *
      * @param filmId ID фильма
      * @param userId ID пользователя
+     * @return true, если лайк добавлен; false, если пользователь уже ставил лайк этому фильму
      */
     @Override
-    public void likeFilm(@Positive(message = idError) int filmId,
-                         @Positive(message = idError) int userId) {
+    @Transactional
+    public boolean likeFilm(@Positive(message = idError) int filmId,
+                            @Positive(message = idError) int userId) {
         log.info("Пользователь ID {} ставит лайк фильму ID {}", userId, filmId);
-        SimpleJdbcInsertOperations simpleJdbc = new SimpleJdbcInsert(jdbcTemplate);
-
+        String sqlQuery = """
+                insert into FILMS_RATINGS (FR_FILM_ID_PK, FR_USER_ID_PK)
+                select :filmId, :userId
+                where not exists (select 1 from FILMS_RATINGS
+                                  where FR_FILM_ID_PK = :filmId and FR_USER_ID_PK = :userId)""";
+        var parameters = new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("userId", userId);
         try {
-            String sqlQuery = "MERGE INTO FILMS_RATINGS (FR_FILM_ID_PK , FR_USER_ID_PK) VALUES (:filmId,:userId)";
-            jdbc.update(sqlQuery, new MapSqlParameterSource()
-                    .addValue("filmId", filmId)
-                    .addValue("userId", userId));
-            log.info("Лайк добавлен в БД");
+            if (jdbc.update(sqlQuery, parameters) == 0) {
+                log.info("Пользователь ID {} уже ставил лайк фильму ID {}", userId, filmId);
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            log.info("Пользователь ID {} уже ставил лайк фильму ID {}", userId, filmId);
+            return false;
         } catch (DataAccessException e) {
             String warn = String.format("Пользователя %d и/или фильма %d не найдено", userId, filmId);
             log.warn(warn);
             throw new EntityNotFoundException(thisService, e.getClass().getName(), warn);
         }
-
+        updateFilmLikeCount(filmId, 1);
+        log.info("Лайк добавлен в БД");
+        return true;
     }
 
     /**
-     * Пользователь отменяет лайк фильму.
+     * Пользователь отменяет лайк фильму. Счетчик лайков фильма уменьшается в той же транзакции.
      *
      * @param filmId фильм
      * @param userId пользователь
      */
     @Override
+    @Transactional
     public void unLikeFilm(@Positive(message = idError) int filmId,
                            @Positive(message = idError) int userId) {
         log.info("Пользователь ID {} отменяет лайк фильму ID {}", userId, filmId);
@@ -76,10 +93,87 @@ public class JdbcLikeRepository implements LikeRepository {
             log.warn(likeAdded);
             throw new EntityNotFoundException(thisService, jdbc.getClass().getName(), likeAdded);
         } else {
+            updateFilmLikeCount(filmId, -1);
             log.info("Лайк удален из БД");
         }
     }
 
+    /**
+     * Метод выполняет пакет операций над лайками в одной транзакции. Существующие фильмы, пользователи
+     * и лайки читаются тремя запросами, операции применяются к ним в памяти по порядку, после чего
+     * итоговые добавления и удаления лайков и изменения счетчиков записываются пакетными запросами.
+     *
+     * @param operations операции над лайками
+     * @return результаты операций и итоговые изменения счетчиков лайков фильмов
+     */
+    @Override
+    @Transactional
+    public BatchResult applyLikes(List<LikeOperation> operations) {
+        log.info("Пакетное выполнение {} операций над лайками", operations.size());
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        operations.stream().filter(this::isValid).forEach(operation -> {
+            filmIds.add(operation.filmId());
+            userIds.add(operation.userId());
+        });
+        if (filmIds.isEmpty()) {
+            return new BatchResult(operations.stream().map(operation -> Status.INVALID).toList(), Map.of());
+        }
+        Set<Integer> existingFilms = new HashSet<>(jdbc.queryForList(
+                "select FILM_ID_PK from FILMS where FILM_ID_PK in (:ids)", Map.of("ids", filmIds), Integer.class));
+        Set<Integer> existingUsers = new HashSet<>(jdbc.queryForList(
+                "select USER_ID_PK from USERS where USER_ID_PK in (:ids)", Map.of("ids", userIds), Integer.class));
+        Set<Long> initialLikes = new HashSet<>();
+        jdbc.query("""
+                        select FR_FILM_ID_PK, FR_USER_ID_PK
+                        from FILMS_RATINGS
+                        where FR_FILM_ID_PK in (:filmIds) and FR_USER_ID_PK in (:userIds)""",
+                Map.of("filmIds", filmIds, "userIds", userIds),
+                (ResultSet rs) -> {
+                    initialLikes.add(likeKey(rs.getInt("FR_FILM_ID_PK"), rs.getInt("FR_USER_ID_PK")));
+                });
+        Set<Long> likes = new HashSet<>(initialLikes);
+        List<Status> statuses = new ArrayList<>(operations.size());
+        for (LikeOperation operation : operations) {
+            if (!isValid(operation)) {
+                statuses.add(Status.INVALID);
+            } else if (!existingFilms.contains(operation.filmId()) || !existingUsers.contains(operation.userId())) {
+                statuses.add(Status.NOT_FOUND);
+            } else if (operation.op() == LikeOperation.Op.ADD) {
+                statuses.add(likes.add(likeKey(operation.filmId(), operation.userId()))
+                        ? Status.APPLIED : Status.UNCHANGED);
+            } else {
+                statuses.add(likes.remove(likeKey(operation.filmId(), operation.userId()))
+                        ? Status.APPLIED : Status.NOT_FOUND);
+            }
+        }
+        Map<Integer, Integer> likeCountChanges = new HashMap<>();
+        var added = likes.stream().filter(key -> !initialLikes.contains(key)).toList();
+        var inserted = jdbc.batchUpdate("""
+                insert into FILMS_RATINGS (FR_FILM_ID_PK, FR_USER_ID_PK)
+                select :filmId, :userId
+                where not exists (select 1 from FILMS_RATINGS
+                                  where FR_FILM_ID_PK = :filmId and FR_USER_ID_PK = :userId)""", likeParameters(added));
+        collectChanges(added, inserted, 1, likeCountChanges);
+        var removed = initialLikes.stream().filter(key -> !likes.contains(key)).toList();
+        var deleted = jdbc.batchUpdate(
+                "delete from FILMS_RATINGS where FR_FILM_ID_PK = :filmId and FR_USER_ID_PK = :userId",
+                likeParameters(removed));
+        collectChanges(removed, deleted, -1, likeCountChanges);
+        likeCountChanges.values().removeIf(delta -> delta == 0);
+        jdbc.batchUpdate("""
+                        update FILMS
+                        set FILM_LIKE_COUNT = FILM_LIKE_COUNT + :delta
+                        where FILM_ID_PK = :filmId""",
+                likeCountChanges.entrySet().stream()
+                        .map(change -> new MapSqlParameterSource()
+                                .addValue("filmId", change.getKey())
+                                .addValue("delta", change.getValue()))
+                        .toArray(MapSqlParameterSource[]::new));
+        log.info("Пакет операций над лайками выполнен: добавлено {}, удалено {}", added.size(), removed.size());
+        return new BatchResult(statuses, likeCountChanges);
+    }
+
     /**
      * Метод получения рейтинга фильма среди пользователей.
      *
@@ -89,10 +183,13 @@ public class JdbcLikeRepository implements LikeRepository {
     public int getFilmRate(int filmId) {
         log.info("Получение рейтинга фильма из БД");
         String sqlQuery = """
-                select count(FR_USER_ID_PK)
-                from FILMS_RATINGS
-                where FR_FILM_ID_PK = :filmId""";
-        var filmRating = jdbc.queryForObject(sqlQuery, Map.of("filmId", filmId), Integer.class);
+                select FILM_LIKE_COUNT
+                from FILMS
+                where FILM_ID_PK = :filmId""";
+        var filmRating = jdbc.queryForList(sqlQuery, Map.of("filmId", filmId), Integer.class)
+                .stream()
+                .findFirst()
+                .orElse(0);
         if (filmRating == null || filmRating < 0) {
             String error = "Ошибка! SQL-запрос вернул NULL или отрицательное значение, " +
                     "маппинг поиска рейтинга фильма выполнен некорректно";
@@ -104,6 +201,24 @@ public class JdbcLikeRepository implements LikeRepository {
         }
     }
 
+    /**
+     * Метод пересчитывает счетчики лайков всех фильмов по таблице FILMS_RATINGS.
+     *
+     * @return количество фильмов, счетчик лайков которых был исправлен
+     */
+    @Override
+    @Transactional
+    public int rebuildLikeCounters() {
+        log.info("Пересчет счетчиков лайков фильмов в БД");
+        String sqlQuery = """
+                update FILMS f
+                set FILM_LIKE_COUNT = (select count(*) from FILMS_RATINGS where FR_FILM_ID_PK = f.FILM_ID_PK)
+                where FILM_LIKE_COUNT <> (select count(*) from FILMS_RATINGS where FR_FILM_ID_PK = f.FILM_ID_PK)""";
+        int updatedFilms = jdbc.update(sqlQuery, Map.of());
+        log.info("Исправлены счетчики лайков у {} фильмов", updatedFilms);
+        return updatedFilms;
+    }
+
     /**
      * Метод получения всех лайков всех пользователей
      *
@@ -132,6 +247,69 @@ public class JdbcLikeRepository implements LikeRepository {
                 params, Boolean.class);
     }
 
+    /**
+     * Метод возвращает ID всех фильмов, которым пользователь поставил лайк.
+     *
+     * @param userId ID пользователя
+     * @return список ID фильмов, может быть пустым
+     */
+    @Override
+    public List<Integer> getUserLikedFilmIds(int userId) {
+        log.info("Получение из БД списка фильмов, которым пользователь ID {} поставил лайк", userId);
+        String sqlQuery = """
+                select FR_FILM_ID_PK
+                from FILMS_RATINGS
+                where FR_USER_ID_PK = :userId""";
+        return jdbc.queryForList(sqlQuery, Map.of("userId", userId), Integer.class);
+    }
+
+    /**
+     * Метод изменяет счетчик лайков фильма на указанную величину.
+     *
+     * @param filmId ID фильма
+     * @param delta  величина изменения счетчика
+     */
+    private void updateFilmLikeCount(int filmId, int delta) {
+        String sqlQuery = """
+                update FILMS
+                set FILM_LIKE_COUNT = FILM_LIKE_COUNT + :delta
+                where FILM_ID_PK = :filmId""";
+        jdbc.update(sqlQuery, Map.of("filmId", filmId, "delta", delta));
+    }
+
+    private boolean isValid(LikeOperation operation) {
+        return operation != null && operation.op() != null && operation.filmId() > 0 && operation.userId() > 0;
+    }
+
+    private long likeKey(int filmId, int userId) {
+        return ((long) filmId << Integer.SIZE) | userId;
+    }
+
+    private MapSqlParameterSource[] likeParameters(List<Long> likeKeys) {
+        return likeKeys.stream()
+                .map(key -> new MapSqlParameterSource()
+                        .addValue("filmId", (int) (key >>> Integer.SIZE))
+                        .addValue("userId", key.intValue()))
+                .toArray(MapSqlParameterSource[]::new);
+    }
+
+    /**
+     * Метод учитывает изменения счетчиков лайков по числу строк, реально измененных пакетным запросом.
+     *
+     * @param likeKeys         ключи лайков пакета
+     * @param updatedRows      число измененных строк по каждому лайку
+     * @param delta            изменение счетчика на одну измененную строку
+     * @param likeCountChanges изменения счетчиков по ID фильмов
+     */
+    private void collectChanges(List<Long> likeKeys, int[] updatedRows, int delta,
+                                Map<Integer, Integer> likeCountChanges) {
+        for (int i = 0; i < likeKeys.size(); i++) {
+            if (updatedRows[i] > 0) {
+                likeCountChanges.merge((int) (likeKeys.get(i) >>> Integer.SIZE), delta, Integer::sum);
+            }
+        }
+    }
+
     private RowMapper<Like> likeMapper() {
         return (ResultSet rs, int rowNum) -> new Like(
                 rs.getInt("FR_USER_ID_PK"),
@@ -6,6 +6,7 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 
 import java.util.Map;
@@ -14,31 +15,43 @@ import java.util.Map;
 @Repository
 @RequiredArgsConstructor
 public class JdbcReviewLikeRepository implements ReviewLikeRepository {
-    private static final String INSERT_QUERY = "MERGE INTO review_like (review_id, user_id, liked) " +
-            "KEY(review_id, user_id) VALUES(:review_id, :user_id, :liked)";
+    private static final String INSERT_QUERY = "INSERT INTO review_like (review_id, user_id, liked) " +
+            "SELECT :review_id, :user_id, :liked WHERE NOT EXISTS " +
+            "(SELECT 1 FROM review_like WHERE review_id = :review_id AND user_id = :user_id)";
     private static final String DELETE_QUERY = "DELETE FROM review_like WHERE review_id = :review_id " +
             "and user_id = :user_id and liked = :liked";
+    private static final String UPDATE_USEFUL_QUERY = "UPDATE review SET useful = useful + :delta " +
+            "WHERE review_id = :review_id";
     private final NamedParameterJdbcOperations jdbc;
 
+    /**
+     * Оценки отзыва меняют счетчик полезности REVIEW.USEFUL в той же транзакции:
+     * лайк увеличивает его на 1, дизлайк уменьшает на 1. При замене дизлайка лайком и наоборот
+     * прежняя оценка удаляется, и счетчик меняется на 2. Повторная такая же оценка счетчик не меняет.
+     */
     @Override
+    @Transactional
     public void addLike(Integer reviewId, Integer userId) {
         log.trace("{}: call addLike() with parameters reviewId = {}, userId = {}", getClass().getSimpleName(), reviewId, userId);
         addReviewLike(reviewId, userId, Boolean.TRUE);
     }
 
     @Override
+    @Transactional
     public void addDislike(Integer reviewId, Integer userId) {
         log.trace("{}: call addDislike() with parameters reviewId = {}, userId = {}", getClass().getSimpleName(), reviewId, userId);
         addReviewLike(reviewId, userId, Boolean.FALSE);
     }
 
     @Override
+    @Transactional
     public void deleteLike(Integer reviewId, Integer userId) {
         log.trace("{}: call deleteLike() with parameters reviewId = {}, userId = {}", getClass().getSimpleName(), reviewId, userId);
         deleteReviewLike(reviewId, userId, Boolean.TRUE);
     }
 
     @Override
+    @Transactional
     public void deleteDislike(Integer reviewId, Integer userId) {
         log.trace("{}: call deleteDislike() with parameters reviewId = {}, userId = {}", getClass().getSimpleName(), reviewId, userId);
         deleteReviewLike(reviewId, userId, Boolean.FALSE);
@@ -52,7 +65,10 @@ public class JdbcReviewLikeRepository implements ReviewLikeRepository {
         ));
         log.trace("{}: MapSqlParameterSource = {}", getClass().getSimpleName(), params);
         try {
-            jdbc.update(INSERT_QUERY, params);
+            int changed = jdbc.update(DELETE_QUERY, new MapSqlParameterSource(params.getValues())
+                    .addValue("liked", !liked));
+            changed += jdbc.update(INSERT_QUERY, params);
+            updateUseful(reviewId, liked ? changed : -changed);
         } catch (DataAccessException e) {
             log.error("{}: throw EntityNotFoundException", getClass().getSimpleName());
             throw new EntityNotFoundException(
@@ -69,6 +85,16 @@ public class JdbcReviewLikeRepository implements ReviewLikeRepository {
                 "user_id", userId,
                 "liked", liked
         ));
-        jdbc.update(DELETE_QUERY, params);
+        int deleted = jdbc.update(DELETE_QUERY, params);
+        updateUseful(reviewId, liked ? -deleted : deleted);
+    }
+
+    private void updateUseful(Integer reviewId, int delta) {
+        if (delta != 0) {
+            jdbc.update(UPDATE_USEFUL_QUERY, new MapSqlParameterSource(Map.of(
+                    "review_id", reviewId,
+                    "delta", delta
+            )));
+        }
     }
 }
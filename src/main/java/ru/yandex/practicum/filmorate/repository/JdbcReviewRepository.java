@@ -9,6 +9,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.entity.Review;
+import ru.yandex.practicum.filmorate.entity.ReviewCursor;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.repository.mappers.ReviewRowMapper;
@@ -21,17 +22,12 @@ import java.util.Optional;
 @Repository
 @RequiredArgsConstructor
 public class JdbcReviewRepository implements ReviewRepository {
-    private static final String FIND_FIRST_BY_FILM_QUERY = "SELECT rw.*, nvl(rl.useful, 0) AS useful " +
-            "FROM review rw " +
-            "LEFT JOIN (SELECT rl.review_id, NVL(SUM(CASEWHEN(liked, 1, 0)) - SUM(CASEWHEN(NOT liked, 1, 0)),0) AS useful " +
-            "             FROM review_like rl GROUP BY rl.review_id) rl ON rl.review_id = rw.REVIEW_ID " +
-            "WHERE rw.film_id = :film_id OR :film_id IS null " +
-            "ORDER BY nvl(rl.useful, 0) DESC " +
-            "LIMIT :count";
-    private static final String FIND_BY_ID_QUERY = "SELECT rw.*, " +
-            "(SELECT SUM(CASEWHEN(liked, 1, 0)) - SUM(CASEWHEN(NOT liked, 1, 0)) " +
-            "   FROM review_like rl WHERE rl.review_id = rw.review_id) AS useful " +
-            "FROM review rw WHERE rw.review_id = :review_id";
+    private static final String FIND_QUERY = "SELECT * FROM review WHERE TRUE";
+    private static final String FILM_CONDITION = " AND film_id = :film_id";
+    private static final String AFTER_CONDITION = " AND (useful < :after_useful " +
+            "OR (useful = :after_useful AND review_id > :after_review_id))";
+    private static final String PAGE_ORDER = " ORDER BY useful DESC, review_id LIMIT :count";
+    private static final String FIND_BY_ID_QUERY = "SELECT * FROM review WHERE review_id = :review_id";
     private static final String INSERT_QUERY = "INSERT INTO review (content, positive, user_id, film_id)" +
             "VALUES (:content, :positive, :user_id, :film_id)";
     private static final String UPDATE_QUERY = "UPDATE review SET content = :content, positive = :positive " +
@@ -42,12 +38,31 @@ public class JdbcReviewRepository implements ReviewRepository {
 
     @Override
     public Collection<Review> get(Integer filmId, Integer count) {
-        log.trace("{}: call get({}, {})", getClass().getSimpleName(), filmId, count);
+        return get(filmId, null, count);
+    }
+
+    /**
+     * Условия на фильм и позицию и порядок сортировки совпадают с индексами REVIEW_FILM_USEFUL_IDX
+     * и REVIEW_USEFUL_IDX, поэтому любая страница читается по индексу так же быстро, как первая.
+     */
+    @Override
+    public Collection<Review> get(Integer filmId, ReviewCursor after, Integer count) {
+        log.trace("{}: call get({}, {}, {})", getClass().getSimpleName(), filmId, after, count);
         MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("film_id", filmId);
+        StringBuilder query = new StringBuilder(FIND_QUERY);
+        if (filmId != null) {
+            query.append(FILM_CONDITION);
+            params.addValue("film_id", filmId);
+        }
+        if (after != null) {
+            query.append(AFTER_CONDITION);
+            params.addValue("after_useful", after.useful());
+            params.addValue("after_review_id", after.reviewId());
+        }
+        query.append(PAGE_ORDER);
         params.addValue("count", count);
         log.trace("{}: MapSqlParameterSource = {}", getClass().getSimpleName(), params);
-        return jdbc.query(FIND_FIRST_BY_FILM_QUERY, params, mapper);
+        return jdbc.query(query.toString(), params, mapper);
     }
 
     @Override
@@ -13,6 +13,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.entity.User;
 import ru.yandex.practicum.filmorate.exception.EntityAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
@@ -20,9 +21,13 @@ import ru.yandex.practicum.filmorate.exception.InternalServiceException;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.STREAM_FETCH_SIZE;
 
 /**
  * Репозиторий реализует логику работы с БД через интерфейс {@link UserRepository}
@@ -121,13 +126,73 @@ public class JdbcUserRepository implements UserRepository {
         return jdbc.query(sqlQuery, userMapper());
     }
 
+    /**
+     * Метод возвращает страницу пользователей, упорядоченных по ID. Страница выбирается условием
+     * по первичному ключу, поэтому стоимость запроса не зависит от номера страницы.
+     *
+     * @param afterId ID последнего пользователя предыдущей страницы, 0 - для первой страницы
+     * @param limit   максимальное количество пользователей на странице
+     * @return список пользователей с ID больше afterId, может быть пустым
+     */
+    @Override
+    public List<User> getUsersPage(int afterId, int limit) {
+        log.info("Чтение страницы пользователей из БД после ID {}, размер страницы {}", afterId, limit);
+        String sqlQuery = """
+                select *
+                from USERS
+                where USER_ID_PK > :afterId
+                order by USER_ID_PK
+                limit :limit""";
+        return jdbc.query(sqlQuery, Map.of("afterId", afterId, "limit", limit), userMapper());
+    }
+
+    /**
+     * Метод последовательно передает получателю всех пользователей в порядке их ID.
+     * Строки читаются из БД порциями по STREAM_FETCH_SIZE строк и в список не собираются.
+     *
+     * @param consumer получатель пользователей
+     */
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        log.info("Потоковое чтение всех пользователей из БД");
+        String sqlQuery = "select * from USERS order by USER_ID_PK";
+        var mapper = userMapper();
+        jdbc.getJdbcOperations().query(connection -> {
+            var statement = connection.prepareStatement(sqlQuery);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        });
+    }
+
+    /**
+     * Метод удаляет пользователя из БД. Лайки пользователя удаляются каскадно,
+     * поэтому счетчики лайков понравившихся ему фильмов и счетчики полезности оцененных им отзывов
+     * исправляются в той же транзакции.
+     *
+     * @param id ID удаляемого пользователя
+     */
     @Override
+    @Transactional
     public void removeUserById(int id) {
         log.info("Удаление пользователия {} из БД", id);
+        var paramSource = new MapSqlParameterSource().addValue("id", id);
         String sqlQuery = """
+                update FILMS
+                set FILM_LIKE_COUNT = FILM_LIKE_COUNT - 1
+                where FILM_ID_PK in (select FR_FILM_ID_PK from FILMS_RATINGS where FR_USER_ID_PK = :id)""";
+        jdbc.update(sqlQuery, paramSource);
+        sqlQuery = """
+                update REVIEW
+                set USEFUL = USEFUL - (select case when LIKED then 1 else -1 end from REVIEW_LIKE
+                                       where REVIEW_LIKE.REVIEW_ID = REVIEW.REVIEW_ID and USER_ID = :id)
+                where REVIEW_ID in (select REVIEW_ID from REVIEW_LIKE where USER_ID = :id)""";
+        jdbc.update(sqlQuery, paramSource);
+        sqlQuery = """
                 delete from USERS
                 where USER_ID_PK = :id""";
-        jdbc.update(sqlQuery, new MapSqlParameterSource().addValue("id", id));
+        jdbc.update(sqlQuery, paramSource);
     }
 
 
@@ -156,6 +221,36 @@ public class JdbcUserRepository implements UserRepository {
         }
     }
 
+    /**
+     * Метод проверяет наличие пользователя одним запросом по первичному ключу
+     *
+     * @param userId ID пользователя
+     * @return true, если пользователь есть в БД
+     */
+    @Override
+    public boolean existsUser(int userId) {
+        log.info("Проверка наличия пользователя ID {} в БД", userId);
+        String sqlQuery = "select exists(select 1 from USERS where USER_ID_PK = :userId)";
+        var paramSource = new MapSqlParameterSource().addValue("userId", userId);
+        return Boolean.TRUE.equals(jdbc.queryForObject(sqlQuery, paramSource, Boolean.class));
+    }
+
+    /**
+     * Метод возвращает из БД пользователей по списку их ID одним запросом.
+     *
+     * @param userIds ID искомых пользователей
+     * @return найденные пользователи в порядке возрастания ID
+     */
+    @Override
+    public List<User> getUsersByIds(Collection<Integer> userIds) {
+        log.info("Чтение из БД {} записей о пользователях по ID", userIds.size());
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        String sqlQuery = "select * from USERS where USER_ID_PK in (:userIds) order by USER_ID_PK";
+        return jdbc.query(sqlQuery, Map.of("userIds", userIds), userMapper());
+    }
+
     private RowMapper<User> userMapper() {
         return (ResultSet rs, int rowNum) -> new User(
                 rs.getInt("USER_ID_PK"),
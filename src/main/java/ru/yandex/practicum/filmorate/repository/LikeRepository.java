@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.entity.Like;
+import ru.yandex.practicum.filmorate.entity.LikeOperation;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Интерфейс для служб, работающих с рейтингом фильмов.
@@ -14,8 +17,9 @@ public interface LikeRepository {
      *
      * @param filmId фильм
      * @param userId пользователь
+     * @return true, если лайк добавлен; false, если пользователь уже ставил лайк этому фильму
      */
-    void likeFilm(int filmId, int userId);
+    boolean likeFilm(int filmId, int userId);
 
     /**
      * Пользователь отменяет лайк фильму.
@@ -25,6 +29,15 @@ public interface LikeRepository {
      */
     void unLikeFilm(int filmId, int userId);
 
+    /**
+     * Метод выполняет пакет операций над лайками. Операции применяются в порядке следования,
+     * повторные операции над одним лайком схлопываются, и в хранилище записывается только итоговое состояние.
+     *
+     * @param operations операции над лайками
+     * @return результаты операций и итоговые изменения счетчиков лайков фильмов
+     */
+    BatchResult applyLikes(List<LikeOperation> operations);
+
     /**
      * Метод возвращает рейтинг фильма
      *
@@ -47,4 +60,28 @@ public interface LikeRepository {
      */
     Boolean isUserHasLikes(int userId);
 
+    /**
+     * Метод возвращает ID всех фильмов, которым пользователь поставил лайк.
+     *
+     * @param userId ID пользователя
+     * @return список ID фильмов, может быть пустым
+     */
+    List<Integer> getUserLikedFilmIds(int userId);
+
+    /**
+     * Метод пересчитывает сохраненные счетчики лайков фильмов по записям о лайках.
+     *
+     * @return количество фильмов, счетчик лайков которых был исправлен
+     */
+    int rebuildLikeCounters();
+
+    /**
+     * Результат выполнения пакета операций над лайками.
+     *
+     * @param statuses         результаты операций в порядке их следования в пакете
+     * @param likeCountChanges изменения количества лайков по ID фильмов, нулевые изменения не включаются
+     */
+    record BatchResult(List<LikeOperationResult.Status> statuses, Map<Integer, Integer> likeCountChanges) {
+    }
+
 }
\ No newline at end of file
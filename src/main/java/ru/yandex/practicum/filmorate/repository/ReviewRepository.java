@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.entity.Review;
+import ru.yandex.practicum.filmorate.entity.ReviewCursor;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -19,6 +20,16 @@ public interface ReviewRepository {
      */
     Collection<Review> get(Integer filmId, Integer count);
 
+    /**
+     * Получение страницы отзывов, отсортированных по убыванию полезности, а при равной полезности - по ID
+     *
+     * @param filmId идентификатор фильма, или null для отзывов всех фильмов
+     * @param after  позиция, после которой начинается страница, или null для первой страницы
+     * @param count  размер страницы
+     * @return возвращает коллекцию объектов Review
+     */
+    Collection<Review> get(Integer filmId, ReviewCursor after, Integer count);
+
     /**
      * Получение отзыва по идендификатору
      *
@@ -2,8 +2,10 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для служб, работающих с пользователями фильмотеки.
@@ -33,6 +35,23 @@ public interface UserRepository {
      */
     List<User> getAllUsers();
 
+    /**
+     * Метод возвращает страницу пользователей, упорядоченных по ID (keyset-пагинация).
+     *
+     * @param afterId ID последнего пользователя предыдущей страницы, 0 - для первой страницы
+     * @param limit   максимальное количество пользователей на странице
+     * @return список пользователей с ID больше afterId, может быть пустым
+     */
+    List<User> getUsersPage(int afterId, int limit);
+
+    /**
+     * Метод последовательно передает получателю всех пользователей в порядке их ID,
+     * не загружая полный список пользователей в память.
+     *
+     * @param consumer получатель пользователей
+     */
+    void streamUsers(Consumer<User> consumer);
+
     void removeUserById(int id);
 
     /**
@@ -43,4 +62,20 @@ public interface UserRepository {
      */
     Optional<User> getUser(int userId);
 
+    /**
+     * Метод проверяет, есть ли в БД пользователь с указанным ID, не читая саму запись
+     *
+     * @param userId ID пользователя
+     * @return true, если пользователь есть в БД
+     */
+    boolean existsUser(int userId);
+
+    /**
+     * Метод возвращает пользователей по списку их ID.
+     *
+     * @param userIds ID искомых пользователей
+     * @return найденные пользователи в порядке возрастания ID
+     */
+    List<User> getUsersByIds(Collection<Integer> userIds);
+
 }
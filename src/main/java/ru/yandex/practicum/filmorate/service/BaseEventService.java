@@ -1,9 +1,60 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.entity.FeedCursor;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface BaseEventService {
     Collection<Event> getFeed(int userId);
+
+    /**
+     * Метод возвращает страницу ленты событий пользователя в порядке времени и ID событий.
+     *
+     * @param userId ID пользователя
+     * @param after  позиция, после которой начинается страница, или null
+     * @param before позиция, перед которой заканчивается страница, или null
+     * @param limit  размер страницы
+     * @return список событий, может быть пустым
+     */
+    List<Event> getFeed(int userId, FeedCursor after, FeedCursor before, int limit);
+
+    /**
+     * Метод разбирает позицию в ленте событий из строки вида "время:ID".
+     *
+     * @param cursor строка с позицией, может быть null
+     * @return позиция, или null, если строка не задана
+     */
+    FeedCursor parseCursor(String cursor);
+
+    /**
+     * Метод возвращает статистику записи событий: глубину очереди, количество записанных событий
+     * и время записи пакетов.
+     *
+     * @return статистика записи событий
+     */
+    EventWriter.Stats getEventWriterStats();
+
+    /**
+     * Метод удаляет или переносит в архив события, вышедшие за ограничения хранения.
+     *
+     * @return итоги запуска: количество удаленных событий и время выполнения
+     */
+    EventCompactor.Run compactEvents();
+
+    /**
+     * Метод возвращает настройки хранения событий и итоги всех запусков ограничения ленты.
+     *
+     * @return статистика ограничения ленты событий
+     */
+    EventCompactor.Stats getRetentionStats();
+
+    /**
+     * Метод последовательно передает получателю все события архива в порядке их ID.
+     *
+     * @param consumer получатель событий
+     */
+    void streamArchivedEvents(Consumer<Event> consumer);
 }
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.entity.FilmImportReport;
+
+import java.io.InputStream;
+
+public interface BaseFilmImportService {
+
+    /**
+     * Метод загружает фильмы из потока данных, по одному фильму в строке. Каждая строка проходит
+     * ту же валидацию, что и фильм в запросе на создание; ошибочные строки пропускаются и попадают в отчет.
+     *
+     * @param input     поток входных данных
+     * @param format    формат входных данных
+     * @param chunkSize количество фильмов, записываемых в БД одним пакетом
+     * @return отчет о загрузке
+     */
+    FilmImportReport importFilms(InputStream input, Format format, int chunkSize);
+
+    /**
+     * Поддерживаемые форматы входных данных.
+     */
+    enum Format {
+        /**
+         * JSON-объект фильма в каждой строке.
+         */
+        NDJSON,
+        /**
+         * CSV-строка: name,description,releaseDate,duration,mpaId,genreIds,directorIds;
+         * ID жанров и режиссеров разделяются символом ';', первая строка может быть заголовком.
+         */
+        CSV
+    }
+}
@@ -1,8 +1,12 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.cache.FilmCache;
 import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.LikeOperation;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BaseFilmService {
     /**
@@ -21,6 +25,14 @@ public interface BaseFilmService {
      */
     void deleteLike(int filmId, int userId);
 
+    /**
+     * Метод выполняет пакет операций над лайками: постановку и отмену лайков.
+     *
+     * @param operations операции над лайками в порядке их выполнения
+     * @return результаты операций в том же порядке
+     */
+    List<LikeOperationResult> applyLikes(List<LikeOperation> operations);
+
     /**
      * Метод получает топ лучших фильмов по лайкам пользователей.
      *
@@ -54,6 +66,10 @@ public interface BaseFilmService {
      */
     List<Film> getFilms();
 
+    List<Film> getFilms(int afterId, int limit);
+
+    void streamFilms(Consumer<Film> consumer);
+
     /**
      * Возвращает список фильмов режиссера, отсортированный по заданному критерию.
      *
@@ -82,6 +98,20 @@ public interface BaseFilmService {
 
     void deleteFilm(int id);
 
+    /**
+     * Метод пересчитывает сохраненные счетчики лайков всех фильмов.
+     *
+     * @return количество фильмов, счетчик лайков которых был исправлен
+     */
+    int rebuildLikeCounters();
+
+    /**
+     * Метод возвращает статистику работы кэша фильмов.
+     *
+     * @return статистика кэша
+     */
+    FilmCache.Stats getFilmCacheStats();
+
     //Метод для поиска фильмов по режисеру и/или названию, в том числе по подстроке
-    List<Film> getFilmsByTitleAndDirector(String query, String searchParameters);
+    List<Film> getFilmsByTitleAndDirector(String query, String searchParameters, Integer limit, int offset);
 }
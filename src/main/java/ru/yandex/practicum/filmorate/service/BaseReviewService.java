@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.entity.Review;
+import ru.yandex.practicum.filmorate.entity.ReviewCursor;
 
 import java.util.Collection;
 
@@ -15,6 +16,24 @@ public interface BaseReviewService {
      */
     Collection<Review> get(Integer filmId, Integer count);
 
+    /**
+     * Получение страницы отзывов, отсортированных по убыванию полезности, а при равной полезности - по ID
+     *
+     * @param filmId идентификатор фильма, или null для отзывов всех фильмов
+     * @param after  позиция, после которой начинается страница, или null для первой страницы
+     * @param count  размер страницы
+     * @return возвращает коллекцию объектов Review
+     */
+    Collection<Review> get(Integer filmId, ReviewCursor after, Integer count);
+
+    /**
+     * Разбор позиции в списке отзывов из строки вида "полезность:ID"
+     *
+     * @param cursor строка с позицией, может быть null
+     * @return позиция, или null, если строка не задана
+     */
+    ReviewCursor parseCursor(String cursor);
+
     /**
      * Получение отзыва по идендификатору
      *
@@ -1,9 +1,11 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.FilmRecommendations;
 import ru.yandex.practicum.filmorate.entity.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BaseUserService {
     /**
@@ -39,6 +41,25 @@ public interface BaseUserService {
      */
     List<User> getCommonFriends(int userId, int friendId);
 
+    /**
+     * Метод возвращает предложения друзей: друзей друзей пользователя, которых он еще не добавил,
+     * в порядке убывания количества общих друзей.
+     *
+     * @param userId ID пользователя
+     * @param limit  наибольшее количество предложений
+     * @return список предлагаемых пользователей, может быть пустым
+     */
+    List<User> getFriendSuggestions(int userId, int limit);
+
+    /**
+     * Метод возвращает кратчайшую цепочку друзей от одного пользователя до другого.
+     *
+     * @param userId  ID первого пользователя
+     * @param otherId ID второго пользователя
+     * @return пользователи цепочки от первого до второго включительно, пустой список, если цепочки нет
+     */
+    List<User> getFriendPath(int userId, int otherId);
+
     /**
      * Метод создает в списке пользователей фильмотеки нового пользователя с уникальным ID.
      *
@@ -62,6 +83,10 @@ public interface BaseUserService {
      */
     List<User> getAllUsers();
 
+    List<User> getUsers(int afterId, int limit);
+
+    void streamUsers(Consumer<User> consumer);
+
     /**
      * Метод возвращает пользователя по его ID
      *
@@ -70,6 +95,13 @@ public interface BaseUserService {
      */
     User getUser(int userId);
 
+    /**
+     * Метод проверяет, что пользователь с указанным ID существует, не читая его данные.
+     *
+     * @param userId ID пользователя
+     */
+    void checkUserExists(int userId);
+
     /**
      * Метод возвращает список рекомендованных поьзователю фильмов по его ID
      *
@@ -78,5 +110,13 @@ public interface BaseUserService {
      */
     List<Film> getRecommendations(int userId);
 
+    /**
+     * Метод возвращает заранее рассчитанные рекомендации пользователю вместе с временем их расчета
+     *
+     * @param userId ID пользователя
+     * @return рекомендованные фильмы и время расчета
+     */
+    FilmRecommendations getStoredRecommendations(int userId);
+
     void deleteUserById(int userId);
 }
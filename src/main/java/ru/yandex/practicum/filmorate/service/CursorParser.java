@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.EntityValidateException;
+
+/**
+ * Разбор позиций постраничного чтения, которые передаются в запросах строкой вида "a:b"
+ * из двух целых чисел, например, "время:ID" в ленте событий или "полезность:ID" в списке отзывов.
+ */
+@Slf4j
+final class CursorParser {
+
+    private CursorParser() {
+    }
+
+    /**
+     * Метод разбирает строку позиции и создает по двум ее числам позицию нужного типа.
+     *
+     * @param cursor  строка позиции или null
+     * @param source  компонент, разбирающий позицию, для ответа об ошибке
+     * @param list    название списка в родительном падеже, например "ленте событий"
+     * @param format  ожидаемый вид позиции, например "время:ID"
+     * @param factory создание позиции по двум числам; может выбросить ArithmeticException,
+     *                если число не помещается в поле позиции
+     * @param <T>     тип позиции
+     * @return позиция или null, если строка позиции не задана
+     * @throws EntityValidateException если строка позиции имеет неверный вид
+     */
+    static <T> T parse(String cursor, String source, String list, String format, Factory<T> factory) {
+        if (cursor == null) {
+            return null;
+        }
+        int separator = cursor.indexOf(':');
+        try {
+            if (separator > 0) {
+                return factory.create(Long.parseLong(cursor.substring(0, separator)),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            log.warn("Некорректная позиция в {}: {}", list, cursor);
+        }
+        throw new EntityValidateException(source, "Разбор позиции в " + list,
+                "Позиция в " + list + " должна иметь вид '" + format + "', получено: " + cursor);
+    }
+
+    /**
+     * Создание позиции по двум числам строки позиции.
+     *
+     * @param <T> тип позиции
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        T create(long first, long second);
+    }
+}
@@ -3,10 +3,13 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.entity.Director;
 import ru.yandex.practicum.filmorate.exception.EntityAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.EntityValidateException;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.repository.DirectorRepository;
 
 import java.util.Collection;
@@ -17,6 +20,9 @@ import java.util.Collection;
 public class DirectorService implements BaseDirectorService {
     private final String thisService = this.getClass().getName();
     private final DirectorRepository directorRepository;
+    private final FilmSearchIndex searchIndex;
+    private final ReferenceDataCache referenceData;
+    private final FilmCache filmCache;
 
     /**
      * Возвращает из БД список всех известных режиссеров
@@ -26,7 +32,7 @@ public class DirectorService implements BaseDirectorService {
     @Override
     public Collection<Director> getAllDirectors() {
         log.info("Получение списка всех режиссеров сервиса");
-        return directorRepository.findAll();
+        return referenceData.getAllDirectors();
     }
 
     /**
@@ -38,7 +44,7 @@ public class DirectorService implements BaseDirectorService {
     @Override
     public Director getDirectorById(int directorId) {
         log.info("Чтение записи о режиссере из БД");
-        return directorRepository.findById(directorId).orElseThrow(() -> new EntityNotFoundException(
+        return referenceData.getDirector(directorId).orElseThrow(() -> new EntityNotFoundException(
                 thisService, directorRepository.getClass().getName(),
                 String.format("Получить запись не удалось, режиссер с ID %d не найден!", directorId))
         );
@@ -55,10 +61,13 @@ public class DirectorService implements BaseDirectorService {
         if (director.getName() == null || director.getName().isBlank()) {
             throw new EntityValidateException(thisService, "Создание режиссера", "Не задано ФИО режиссера");
         }
-        return directorRepository.create(director).orElseThrow(() ->
+        var createdDirector = directorRepository.create(director).orElseThrow(() ->
                 new EntityAlreadyExistsException(
                         thisService, "Создание режиссера", director.getName() + " уже существует"
                 ));
+        referenceData.invalidateDirectors();
+        searchIndex.putDirector(createdDirector);
+        return createdDirector;
     }
 
     /**
@@ -69,10 +78,14 @@ public class DirectorService implements BaseDirectorService {
      */
     @Override
     public Director updateDirector(Director director) {
-        return directorRepository.update(director).orElseThrow(() ->
+        var updatedDirector = directorRepository.update(director).orElseThrow(() ->
                 new EntityNotFoundException(
                         thisService, "Обновление режиссера: режиссера ", director.getName() + " не существует"
                 ));
+        referenceData.invalidateDirectors();
+        filmCache.invalidateAll();
+        searchIndex.putDirector(updatedDirector);
+        return updatedDirector;
     }
 
     /**
@@ -83,5 +96,8 @@ public class DirectorService implements BaseDirectorService {
     @Override
     public void deleteDirector(int directorId) {
         directorRepository.delete(directorId);
+        referenceData.invalidateDirectors();
+        filmCache.invalidateAll();
+        searchIndex.removeDirector(directorId);
     }
 }
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.EventRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_EVENT_RETENTION_BATCH_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_EVENT_RETENTION_INTERVAL_MS;
+
+/**
+ * Ограничение размера ленты событий. Фоновая задача удаляет события старше maxAgeDays дней
+ * и события пользователя сверх его maxEventsPerUser последних событий; нулевое значение отключает ограничение.
+ * События удаляются порциями по batchSize строк, каждая порция - в отдельной короткой транзакции,
+ * поэтому таблица событий не блокируется надолго. Если включен архив, удаляемые события
+ * переносятся в таблицу EVENTS_ARCHIVE, откуда их можно выгрузить.
+ */
+@Slf4j
+@Component
+public class EventCompactor {
+    private final EventRepository events;
+    private final int maxAgeDays;
+    private final int maxEventsPerUser;
+    private final int batchSize;
+    private final boolean archive;
+    private long runs;
+    private long removedByAge;
+    private long removedOverUserLimit;
+    private long totalMillis;
+    private Run lastRun;
+
+    @Autowired
+    public EventCompactor(EventRepository events,
+                          @Value("${filmorate.events.retention.max-age-days:0}") int maxAgeDays,
+                          @Value("${filmorate.events.retention.max-per-user:0}") int maxEventsPerUser,
+                          @Value("${filmorate.events.retention.batch-size:" + DEFAULT_EVENT_RETENTION_BATCH_SIZE + "}")
+                          int batchSize,
+                          @Value("${filmorate.events.retention.archive:true}") boolean archive) {
+        if (maxAgeDays < 0 || maxEventsPerUser < 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Срок хранения и количество событий пользователя не могут быть"
+                    + " отрицательными, размер порции удаления должен быть положительным");
+        }
+        this.events = events;
+        this.maxAgeDays = maxAgeDays;
+        this.maxEventsPerUser = maxEventsPerUser;
+        this.batchSize = batchSize;
+        this.archive = archive;
+    }
+
+    /**
+     * Метод удаляет или переносит в архив события, вышедшие за ограничения хранения.
+     * Выполняется в фоне с фиксированной паузой между запусками.
+     *
+     * @return итоги запуска
+     */
+    @Scheduled(fixedDelayString = "${filmorate.events.retention.interval-ms:"
+            + DEFAULT_EVENT_RETENTION_INTERVAL_MS + "}")
+    public synchronized Run compact() {
+        if (maxAgeDays == 0 && maxEventsPerUser == 0) {
+            return new Run(0, 0, archive, 0);
+        }
+        long start = System.nanoTime();
+        int byAge = 0;
+        if (maxAgeDays > 0) {
+            long cutoff = Instant.now().minus(Duration.ofDays(maxAgeDays)).toEpochMilli();
+            byAge = removeInBatches(() -> events.getEventIdsOlderThan(cutoff, batchSize));
+        }
+        int overUserLimit = 0;
+        if (maxEventsPerUser > 0) {
+            for (int userId : events.getUserIdsWithEventsOver(maxEventsPerUser)) {
+                overUserLimit += removeInBatches(
+                        () -> events.getEventIdsOverUserLimit(userId, maxEventsPerUser, batchSize));
+            }
+        }
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        var run = new Run(byAge, overUserLimit, archive, elapsedMillis);
+        runs++;
+        removedByAge += byAge;
+        removedOverUserLimit += overUserLimit;
+        totalMillis += elapsedMillis;
+        lastRun = run;
+        if (byAge + overUserLimit > 0) {
+            log.info("Из ленты {} событий: старше {} дней - {}, сверх {} на пользователя - {}, за {} мс",
+                    archive ? "перенесено в архив" : "удалено", maxAgeDays, byAge, maxEventsPerUser,
+                    overUserLimit, elapsedMillis);
+        }
+        return run;
+    }
+
+    /**
+     * Метод возвращает настройки хранения событий и итоги всех запусков.
+     *
+     * @return статистика ограничения ленты событий
+     */
+    public synchronized Stats getStats() {
+        return new Stats(maxAgeDays, maxEventsPerUser, archive, runs, removedByAge, removedOverUserLimit,
+                totalMillis, lastRun);
+    }
+
+    /**
+     * Метод удаляет события порциями, пока источник возвращает ID.
+     *
+     * @param nextBatch источник очередной порции ID событий
+     * @return количество удаленных событий
+     */
+    private int removeInBatches(Supplier<List<Integer>> nextBatch) {
+        int removed = 0;
+        List<Integer> eventIds = nextBatch.get();
+        while (!eventIds.isEmpty()) {
+            removed += archive ? events.archiveEvents(eventIds) : events.deleteEvents(eventIds);
+            eventIds = nextBatch.get();
+        }
+        return removed;
+    }
+
+    /**
+     * Итоги одного запуска.
+     *
+     * @param removedByAge         количество событий, удаленных по сроку хранения
+     * @param removedOverUserLimit количество событий, удаленных сверх ограничения на пользователя
+     * @param archived             true, если события перенесены в архив
+     * @param elapsedMillis        время выполнения, мс
+     */
+    public record Run(int removedByAge, int removedOverUserLimit, boolean archived, long elapsedMillis) {
+    }
+
+    /**
+     * Статистика ограничения ленты событий.
+     *
+     * @param maxAgeDays           срок хранения событий в днях, 0 - без ограничения
+     * @param maxEventsPerUser     количество хранимых последних событий пользователя, 0 - без ограничения
+     * @param archive              true, если удаляемые события переносятся в архив
+     * @param runs                 количество запусков
+     * @param removedByAge         всего удалено событий по сроку хранения
+     * @param removedOverUserLimit всего удалено событий сверх ограничения на пользователя
+     * @param totalMillis          общее время выполнения, мс
+     * @param lastRun              итоги последнего запуска, или null, если запусков не было
+     */
+    public record Stats(int maxAgeDays, int maxEventsPerUser, boolean archive, long runs, long removedByAge,
+                        long removedOverUserLimit, long totalMillis, Run lastRun) {
+    }
+}
@@ -4,20 +4,58 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.entity.FeedCursor;
 import ru.yandex.practicum.filmorate.repository.EventRepository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventService implements BaseEventService {
+    private final String thisService = this.getClass().getName();
     private final EventRepository eventRepository;
+    private final EventWriter eventWriter;
+    private final EventCompactor eventCompactor;
     private final UserService userService;
 
     @Override
     public Collection<Event> getFeed(int userId) {
-        userService.getUser(userId);
+        userService.checkUserExists(userId);
         return eventRepository.getAllFriendsEventsByUserId(userId);
     }
+
+    @Override
+    public List<Event> getFeed(int userId, FeedCursor after, FeedCursor before, int limit) {
+        userService.checkUserExists(userId);
+        return eventRepository.getFeedPage(userId, after, before, limit);
+    }
+
+    @Override
+    public EventWriter.Stats getEventWriterStats() {
+        return eventWriter.getStats();
+    }
+
+    @Override
+    public EventCompactor.Run compactEvents() {
+        return eventCompactor.compact();
+    }
+
+    @Override
+    public EventCompactor.Stats getRetentionStats() {
+        return eventCompactor.getStats();
+    }
+
+    @Override
+    public void streamArchivedEvents(Consumer<Event> consumer) {
+        eventRepository.streamArchivedEvents(consumer);
+    }
+
+    @Override
+    public FeedCursor parseCursor(String cursor) {
+        return CursorParser.parse(cursor, thisService, "ленте событий", "время:ID",
+                (timestamp, eventId) -> new FeedCursor(timestamp, Math.toIntExact(eventId)));
+    }
 }
@@ -0,0 +1,279 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_EVENT_BATCH_SIZE;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_EVENT_FLUSH_INTERVAL_MS;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_EVENT_QUEUE_CAPACITY;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.EVENT_SHUTDOWN_TIMEOUT_MS;
+
+/**
+ * Запись событий ленты в БД. В синхронном режиме событие записывается сразу в потоке запроса.
+ * В асинхронном режиме события кладутся в ограниченную очередь, а отдельный поток записывает их в БД
+ * пакетами: пакет записывается, когда набралось batchSize событий или с первого события пакета прошло
+ * flushInterval миллисекунд. Если очередь заполнена дольше flushInterval, событие записывается
+ * в потоке запроса, так запросы притормаживаются, но события не теряются. События, созданные внутри
+ * транзакции, попадают в очередь только после ее фиксации. При остановке приложения очередь дописывается в БД.
+ * По умолчанию используется асинхронный режим: событие появляется в ленте с задержкой до flushInterval,
+ * что для ленты допустимо. Синхронный режим нужен тестам, которые читают ленту сразу после действия.
+ */
+@Slf4j
+@Component
+public class EventWriter {
+    private final EventRepository events;
+    private final Mode mode;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<Event> queue;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong writtenByCaller = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Autowired
+    public EventWriter(EventRepository events,
+                       @Value("${filmorate.events.write-mode:ASYNC}") Mode mode,
+                       @Value("${filmorate.events.queue-capacity:" + DEFAULT_EVENT_QUEUE_CAPACITY + "}") int capacity,
+                       @Value("${filmorate.events.batch-size:" + DEFAULT_EVENT_BATCH_SIZE + "}") int batchSize,
+                       @Value("${filmorate.events.flush-interval-ms:" + DEFAULT_EVENT_FLUSH_INTERVAL_MS + "}")
+                       long flushIntervalMs) {
+        if (capacity <= 0 || batchSize <= 0 || flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("Размер очереди, размер пакета и интервал записи событий"
+                    + " должны быть положительными");
+        }
+        this.events = events;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Метод запускает поток записи событий в асинхронном режиме.
+     */
+    @PostConstruct
+    public void start() {
+        if (mode == Mode.ASYNC) {
+            running = true;
+            writerThread = new Thread(this::writeLoop, "event-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+            log.info("Запущена асинхронная запись событий: очередь {}, пакет {}, интервал {} мс",
+                    queue.remainingCapacity(), batchSize, flushIntervalMs);
+        }
+    }
+
+    /**
+     * Метод останавливает поток записи, предварительно дописав в БД все события из очереди.
+     */
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(EVENT_SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.error("Запись событий не завершилась за {} мс, в очереди осталось событий: {}",
+                    EVENT_SHUTDOWN_TIMEOUT_MS, queue.size());
+            return;
+        }
+        List<Event> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        flush(rest);
+        log.info("Асинхронная запись событий остановлена, записано событий: {}", written.get());
+    }
+
+    /**
+     * Метод записывает событие ленты.
+     *
+     * @param event событие
+     */
+    public void write(Event event) {
+        writeAll(List.of(event));
+    }
+
+    /**
+     * Метод записывает события ленты в порядке их следования.
+     *
+     * @param newEvents события
+     */
+    public void writeAll(List<Event> newEvents) {
+        if (newEvents.isEmpty()) {
+            return;
+        }
+        if (mode == Mode.SYNC) {
+            events.createAll(newEvents);
+            written.addAndGet(newEvents.size());
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(newEvents);
+                }
+            });
+        } else {
+            enqueue(newEvents);
+        }
+    }
+
+    /**
+     * Метод возвращает статистику записи событий.
+     *
+     * @return статистика записи событий
+     */
+    public Stats getStats() {
+        long flushCount = flushes.get();
+        return new Stats(mode, queue.size(), queue.size() + queue.remainingCapacity(), written.get(), failed.get(),
+                writtenByCaller.get(), flushCount,
+                flushCount == 0 ? 0 : flushNanos.get() / flushCount / 1_000_000.0,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    private void enqueue(List<Event> newEvents) {
+        for (int i = 0; i < newEvents.size(); i++) {
+            boolean queued;
+            try {
+                queued = running && queue.offer(newEvents.get(i), flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                var rest = newEvents.subList(i, newEvents.size());
+                log.warn("Очередь событий заполнена или остановлена, {} событий записываются в потоке запроса",
+                        rest.size());
+                flush(new ArrayList<>(rest));
+                writtenByCaller.addAndGet(rest.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Цикл потока записи: ожидает первое событие пакета, добирает пакет до batchSize событий
+     * или до истечения flushInterval и записывает его. После остановки дописывает очередь до конца.
+     */
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                log.warn("Поток записи событий прерван, в очереди осталось событий: {}", queue.size());
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка в потоке записи событий", e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Метод записывает пакет событий одним пакетным запросом. Если пакет записать не удалось,
+     * события записываются по одному, чтобы одно ошибочное событие не отменяло запись остальных.
+     *
+     * @param batch пакет событий
+     */
+    private void flush(List<Event> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            events.createAll(batch);
+            written.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать пакет из {} событий, события записываются по одному", batch.size(), e);
+            for (var event : batch) {
+                try {
+                    events.create(event);
+                    written.incrementAndGet();
+                } catch (DataAccessException eventError) {
+                    failed.incrementAndGet();
+                    log.error("Событие {} не записано: {}", event, eventError.getMessage());
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Режим записи событий.
+     */
+    public enum Mode {
+        /**
+         * Событие записывается в БД в потоке запроса, в его транзакции.
+         */
+        SYNC,
+        /**
+         * Событие записывается в БД фоновым потоком пакетами.
+         */
+        ASYNC
+    }
+
+    /**
+     * Статистика записи событий.
+     *
+     * @param mode            режим записи
+     * @param queueDepth      количество событий в очереди
+     * @param queueCapacity   размер очереди
+     * @param written         количество записанных событий
+     * @param failed          количество событий, которые не удалось записать
+     * @param writtenByCaller количество событий, записанных в потоке запроса из-за заполненной очереди
+     * @param flushes         количество записанных пакетов
+     * @param avgFlushMillis  среднее время записи пакета, мс
+     * @param maxFlushMillis  наибольшее время записи пакета, мс
+     */
+    public record Stats(Mode mode, int queueDepth, int queueCapacity, long written, long failed,
+                        long writtenByCaller, long flushes, double avgFlushMillis, double maxFlushMillis) {
+    }
+}
@@ -0,0 +1,273 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.entity.Director;
+import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.FilmImportReport;
+import ru.yandex.practicum.filmorate.entity.FilmImportReport.LineError;
+import ru.yandex.practicum.filmorate.entity.Genre;
+import ru.yandex.practicum.filmorate.entity.Mpa;
+import ru.yandex.practicum.filmorate.exception.AppException;
+import ru.yandex.practicum.filmorate.exception.EntityValidateException;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.MAX_IMPORT_ERRORS;
+
+/**
+ * Сервис пакетной загрузки фильмов из NDJSON или CSV.
+ * Входные данные читаются построчно и в память целиком не загружаются; прошедшие валидацию фильмы
+ * копятся в пакет заданного размера и записываются в БД пакетными запросами.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class FilmImportService implements BaseFilmImportService {
+    private static final String CSV_HEADER = "name,";
+    private static final int CSV_COLUMNS = 7;
+    private final String thisService = this.getClass().getName();
+    private final FilmRepository films;
+    private final FilmService filmService;
+    private final PopularFilmsIndex popularFilms;
+    private final FilmSearchIndex searchIndex;
+    private final ObjectProvider<ObjectMapper> objectMapper;
+    private final ObjectProvider<Validator> validator;
+
+    /**
+     * Метод загружает фильмы из потока данных, по одному фильму в строке.
+     *
+     * @param input     поток входных данных
+     * @param format    формат входных данных
+     * @param chunkSize количество фильмов, записываемых в БД одним пакетом
+     * @return отчет о загрузке
+     */
+    @Override
+    public FilmImportReport importFilms(InputStream input, Format format, int chunkSize) {
+        log.info("Пакетная загрузка фильмов в формате {}, размер пакета {}", format, chunkSize);
+        var report = new ReportBuilder();
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkLines = new ArrayList<>(chunkSize);
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && line.startsWith(CSV_HEADER))) {
+                    continue;
+                }
+                try {
+                    var film = format == Format.NDJSON ? parseJson(line) : parseCsv(line);
+                    validate(film);
+                    filmService.validateAndUpdateFilm(film);
+                    chunk.add(film);
+                    chunkLines.add(lineNumber);
+                } catch (AppException e) {
+                    report.reject(lineNumber, e.getMessage());
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    log.warn("Непредвиденная ошибка разбора строки {}", lineNumber, e);
+                    report.reject(lineNumber, "Некорректные данные фильма");
+                }
+                if (chunk.size() >= chunkSize) {
+                    saveChunk(chunk, chunkLines, report);
+                }
+            }
+            saveChunk(chunk, chunkLines, report);
+        } catch (IOException e) {
+            log.error("Ошибка чтения входных данных", e);
+            throw new InternalServiceException(thisService, e.getClass().getName(),
+                    "Ошибка чтения входных данных: " + e.getMessage());
+        }
+        var result = report.build();
+        log.info("Пакетная загрузка завершена, загружено фильмов: {}, отклонено строк: {}",
+                result.imported(), result.rejected());
+        return result;
+    }
+
+    /**
+     * Метод записывает накопленный пакет фильмов в БД и добавляет фильмы в индексы.
+     * Если пакет записать не удалось, его фильмы записываются по одному, чтобы в отчет как отклоненные
+     * попали только строки, которые не удалось записать; загрузка продолжается.
+     *
+     * @param chunk      пакет фильмов
+     * @param chunkLines номера строк, из которых получены фильмы пакета
+     * @param report     отчет о загрузке
+     */
+    private void saveChunk(List<Film> chunk, List<Integer> chunkLines, ReportBuilder report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            save(chunk);
+            report.imported += chunk.size();
+        } catch (DataAccessException | AppException e) {
+            log.warn("Не удалось записать пакет из {} фильмов, фильмы записываются по одному", chunk.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                var film = chunk.get(i);
+                film.setId(0);
+                try {
+                    save(List.of(film));
+                    report.imported++;
+                } catch (DataAccessException | AppException filmError) {
+                    report.reject(chunkLines.get(i), "Ошибка записи в БД: " + filmError.getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void save(List<Film> filmsToSave) {
+        films.createFilms(filmsToSave).forEach(film -> {
+            popularFilms.addFilm(film);
+            searchIndex.putFilm(film);
+        });
+    }
+
+    private Film parseJson(String line) {
+        try {
+            var film = objectMapper.getObject().readValue(line, Film.class);
+            if (film == null) {
+                throw new EntityValidateException(thisService, "Разбор JSON", "Строка не содержит фильм");
+            }
+            film.setId(0);
+            film.setRate(0);
+            return film;
+        } catch (JsonProcessingException e) {
+            throw new EntityValidateException(thisService, "Разбор JSON", "Некорректный JSON: "
+                    + e.getOriginalMessage());
+        }
+    }
+
+    private Film parseCsv(String line) {
+        var columns = splitCsv(line);
+        if (columns.size() != CSV_COLUMNS) {
+            throw new EntityValidateException(thisService, "Разбор CSV", String.format(
+                    "Ожидается %d полей, получено %d", CSV_COLUMNS, columns.size()));
+        }
+        try {
+            var film = new Film();
+            film.setName(columns.get(0));
+            film.setDescription(columns.get(1));
+            film.setReleaseDate(columns.get(2).isBlank() ? null : LocalDate.parse(columns.get(2).strip()));
+            film.setDuration(Integer.parseInt(columns.get(3).strip()));
+            if (!columns.get(4).isBlank()) {
+                film.setMpa(new Mpa(Integer.parseInt(columns.get(4).strip()), null));
+            }
+            film.setGenres(parseIds(columns.get(5)).stream()
+                    .map(id -> new Genre(id, null))
+                    .toList());
+            film.setDirectors(parseIds(columns.get(6)).stream()
+                    .map(id -> new Director(id, null))
+                    .collect(Collectors.toCollection(() -> new TreeSet<>(Director::compareTo))));
+            return film;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new EntityValidateException(thisService, "Разбор CSV", "Некорректное значение поля: "
+                    + e.getMessage());
+        }
+    }
+
+    private List<Integer> parseIds(String column) {
+        if (column.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(column.split(";"))
+                .map(String::strip)
+                .map(Integer::parseInt)
+                .toList();
+    }
+
+    /**
+     * Метод разбивает строку CSV на поля. Поле в двойных кавычках может содержать запятые,
+     * кавычка внутри такого поля записывается двумя кавычками.
+     *
+     * @param line строка CSV
+     * @return список полей
+     */
+    private List<String> splitCsv(String line) {
+        List<String> columns = new ArrayList<>();
+        var column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    column.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    private void validate(Film film) {
+        if ((film.getGenres() != null && film.getGenres().stream().anyMatch(Objects::isNull))
+                || (film.getDirectors() != null && film.getDirectors().stream().anyMatch(Objects::isNull))) {
+            throw new EntityValidateException(thisService, "Валидация фильма",
+                    "Список жанров и режиссеров не может содержать пустые значения");
+        }
+        var violations = validator.getObject().validate(film);
+        if (!violations.isEmpty()) {
+            throw new EntityValidateException(thisService, "Валидация фильма", violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    /**
+     * Накопитель результатов загрузки.
+     */
+    private static class ReportBuilder {
+        private final List<LineError> errors = new ArrayList<>();
+        private int imported;
+        private int rejected;
+
+        void reject(int line, String message) {
+            rejected++;
+            if (errors.size() < MAX_IMPORT_ERRORS) {
+                errors.add(new LineError(line, message));
+            }
+        }
+
+        FilmImportReport build() {
+            errors.sort((first, second) -> Integer.compare(first.line(), second.line()));
+            return new FilmImportReport(imported, rejected, List.copyOf(errors));
+        }
+    }
+}
@@ -9,25 +9,37 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.entity.Event;
 import ru.yandex.practicum.filmorate.entity.EventOperation;
 import ru.yandex.practicum.filmorate.entity.EventType;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DirectorSortParams;
 import ru.yandex.practicum.filmorate.entity.Director;
 import ru.yandex.practicum.filmorate.entity.Film;
 import ru.yandex.practicum.filmorate.entity.Genre;
+import ru.yandex.practicum.filmorate.entity.LikeOperation;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult.Status;
 import ru.yandex.practicum.filmorate.entity.Mpa;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.EntityValidateException;
 import ru.yandex.practicum.filmorate.exception.InternalServiceException;
-import ru.yandex.practicum.filmorate.repository.EventRepository;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.index.UserLikesIndex;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.LikeRepository;
-import ru.yandex.practicum.filmorate.repository.UtilRepository;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DEFAULT_MPA_RATING;
+import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.MAX_LIKE_BATCH_SIZE;
 
 /**
  * Сервис содержит логику работы с пользователями
@@ -47,11 +59,31 @@ public class FilmService implements BaseFilmService {
      */
     private final LikeRepository likes;
     /**
-     * Подключение репозитория для работы с сервисными запросами в репозиторий.
+     * Подключение кэша справочных данных: жанров, MPA-рейтингов и режиссеров.
      */
-    private final UtilRepository utils;
+    private final ReferenceDataCache referenceData;
 
-    private final EventRepository events;
+    private final EventWriter events;
+    /**
+     * Подключение индекса популярности фильмов.
+     */
+    private final PopularFilmsIndex popularFilms;
+    /**
+     * Подключение поискового индекса фильмов.
+     */
+    private final FilmSearchIndex searchIndex;
+    /**
+     * Подключение кэша записей о фильмах.
+     */
+    private final FilmCache filmCache;
+    /**
+     * Подключение индекса лайков пользователей.
+     */
+    private final UserLikesIndex userLikes;
+    /**
+     * Подключение хранилища рассчитанных рекомендаций.
+     */
+    private final RecommendationCache recommendations;
 
     /**
      * Метод позволяет пользователю лайкнуть фильм.
@@ -62,8 +94,12 @@ public class FilmService implements BaseFilmService {
     @Override
     public void addLike(int filmId, int userId) {
         log.info("Добавление лайка фильму на сервисе");
-        likes.likeFilm(filmId, userId);
-        events.create(new Event(Instant.now().toEpochMilli(), userId, EventType.LIKE.toString(), EventOperation.ADD.toString(), filmId));
+        if (likes.likeFilm(filmId, userId)) {
+            popularFilms.changeLikes(filmId, 1);
+            userLikes.addLike(userId, filmId);
+            recommendations.likeChanged(userId, filmId);
+        }
+        events.write(new Event(Instant.now().toEpochMilli(), userId, EventType.LIKE.toString(), EventOperation.ADD.toString(), filmId));
     }
 
     /**
@@ -76,19 +112,71 @@ public class FilmService implements BaseFilmService {
     public void deleteLike(int filmId, int userId) {
         log.info("Удаление лайка фильму на сервисе:");
         likes.unLikeFilm(filmId, userId);
-        events.create(new Event(Instant.now().toEpochMilli(), userId, EventType.LIKE.toString(), EventOperation.REMOVE.toString(), filmId));
+        popularFilms.changeLikes(filmId, -1);
+        userLikes.removeLike(userId, filmId);
+        recommendations.likeChanged(userId, filmId);
+        events.write(new Event(Instant.now().toEpochMilli(), userId, EventType.LIKE.toString(), EventOperation.REMOVE.toString(), filmId));
+    }
+
+    /**
+     * Метод выполняет пакет операций над лайками. Лайки и счетчики лайков записываются пакетными запросами
+     * в одной транзакции, события ленты - одним пакетным запросом. События создаются так же, как при
+     * одиночных запросах: для каждой выполненной операции и для повторной постановки лайка.
+     *
+     * @param operations операции над лайками в порядке их выполнения
+     * @return результаты операций в том же порядке
+     */
+    @Override
+    public List<LikeOperationResult> applyLikes(List<LikeOperation> operations) {
+        log.info("Пакетное выполнение {} операций над лайками на сервисе", operations.size());
+        if (operations.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new EntityValidateException(thisService, "Валидация пакета лайков",
+                    "Пакет не может содержать больше " + MAX_LIKE_BATCH_SIZE + " операций");
+        }
+        var batchResult = likes.applyLikes(operations);
+        batchResult.likeCountChanges().forEach(popularFilms::changeLikes);
+        long timestamp = Instant.now().toEpochMilli();
+        List<Event> likeEvents = new ArrayList<>();
+        List<LikeOperationResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            var operation = operations.get(i);
+            var status = batchResult.statuses().get(i);
+            if (status == Status.APPLIED && operation.op() == LikeOperation.Op.ADD) {
+                userLikes.addLike(operation.userId(), operation.filmId());
+            } else if (status == Status.APPLIED) {
+                userLikes.removeLike(operation.userId(), operation.filmId());
+            }
+            if (status == Status.APPLIED) {
+                recommendations.likeChanged(operation.userId(), operation.filmId());
+            }
+            if (status == Status.APPLIED || (status == Status.UNCHANGED && operation.op() == LikeOperation.Op.ADD)) {
+                likeEvents.add(new Event(timestamp, operation.userId(), EventType.LIKE.toString(),
+                        operation.op() == LikeOperation.Op.ADD
+                                ? EventOperation.ADD.toString()
+                                : EventOperation.REMOVE.toString(),
+                        operation.filmId()));
+            }
+            results.add(operation == null
+                    ? new LikeOperationResult(0, 0, null, status)
+                    : new LikeOperationResult(operation.filmId(), operation.userId(), operation.op(), status));
+        }
+        events.writeAll(likeEvents);
+        return results;
     }
 
     /**
      * Метод получает топ лучших фильмов по лайкам пользователей.
+     * Состав и порядок топа берутся из индекса популярности, сами фильмы читаются из БД одним запросом.
      *
      * @param topSize размер топа
+     * @param genreId ID жанра, необязательный фильтр
+     * @param year    год релиза, необязательный фильтр
      * @return топ лучших фильмов
      */
     @Override
     public List<Film> getTopFilms(Integer topSize, Integer genreId, Integer year) {
         log.info("Получение списка наиболее популярных фильмов по количеству лайков, топ {}:", topSize);
-        return films.getPopularFilm(topSize, genreId, year);
+        return getFilmsInOrder(popularFilms.getTopFilmIds(topSize, genreId, year));
     }
 
     /**
@@ -101,9 +189,12 @@ public class FilmService implements BaseFilmService {
     public Film createfilm(Film film) {
         log.info("Создание записи о фильме: {}", film);
         validateAndUpdateFilm(film);
-        return films.createFilm(film).orElseThrow(
+        var createdFilm = films.createFilm(film).orElseThrow(
                 () -> new InternalServiceException(thisService, films.getClass().getName(),
                         "Не удалось создать запись о фильме."));
+        popularFilms.addFilm(createdFilm);
+        searchIndex.putFilm(createdFilm);
+        return createdFilm;
     }
 
     /**
@@ -116,9 +207,13 @@ public class FilmService implements BaseFilmService {
     public Film updateFilm(Film film) {
         log.info("Обновление записи о фильме на сервисе: {}", film);
         validateAndUpdateFilm(film);
-        return films.updateFilm(film).orElseThrow(
+        var updatedFilm = films.updateFilm(film).orElseThrow(
                 () -> new EntityNotFoundException(thisService, films.getClass().getName(),
                         "Обновить запись о фильме не удалось, запись не найдена на сервисе."));
+        filmCache.invalidate(updatedFilm.getId());
+        popularFilms.updateFilm(updatedFilm);
+        searchIndex.putFilm(updatedFilm);
+        return updatedFilm;
     }
 
     /**
@@ -132,6 +227,30 @@ public class FilmService implements BaseFilmService {
         return films.getFilms();
     }
 
+    /**
+     * Метод возвращает страницу записей о фильмах в порядке их ID.
+     *
+     * @param afterId ID последнего фильма предыдущей страницы, 0 - для первой страницы
+     * @param limit   размер страницы
+     * @return список фильмов, может быть пустым
+     */
+    @Override
+    public List<Film> getFilms(int afterId, int limit) {
+        log.info("Получение страницы фильмов сервиса после ID {}, размер страницы {}", afterId, limit);
+        return films.getFilmsPage(afterId, limit);
+    }
+
+    /**
+     * Метод последовательно передает получателю все записи о фильмах в порядке их ID.
+     *
+     * @param consumer получатель фильмов
+     */
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        log.info("Потоковая выгрузка всех фильмов сервиса");
+        films.streamFilms(consumer);
+    }
+
     /**
      * Возвращает из БД список фильмов режиссера, отсортированный по заданному критерию.
      *
@@ -147,7 +266,7 @@ public class FilmService implements BaseFilmService {
         if (DirectorSortParams.year.toString().equals(criteria)) {
             conditions = " order by FILM_RELEASE_DATE";
         } else if (DirectorSortParams.likes.toString().equals(criteria)) {
-            conditions = " order by RATE desc;";
+            conditions = " order by FILM_LIKE_COUNT desc, FILM_ID_PK";
         } else {
             throw new EntityValidateException(
                     thisService, "Валидация параметров запроса", "Этот функционал не реализован");
@@ -156,7 +275,7 @@ public class FilmService implements BaseFilmService {
     }
 
     /**
-     * Метод возвращает запись о конкретном фильме.
+     * Метод возвращает запись о конкретном фильме. Запись читается через кэш фильмов.
      *
      * @param id ID искомого фильма
      * @return найденная запись о фильме
@@ -164,13 +283,15 @@ public class FilmService implements BaseFilmService {
     @Override
     public Film getFilm(int id) {
         log.info("Получение с сервиса записи о фильме:");
-        return films.getFilm(id).orElseThrow(() -> new EntityNotFoundException(
+        return filmCache.getFilm(id).orElseThrow(() -> new EntityNotFoundException(
                 thisService, films.getClass().getName(),
                 String.format("Получить запись о фильме не удалось, фильм с ID %d не найден!", id)));
     }
 
     /**
-     * Метод возвращает список общих с другом фильмов с сортировкой по их популярности
+     * Метод возвращает список общих с другом фильмов с сортировкой по их популярности.
+     * Общие фильмы находятся пересечением отсортированных массивов лайков пользователей из индекса лайков
+     * и упорядочиваются по индексу популярности, из БД читаются только сами фильмы.
      *
      * @param userId   идентификатор пользователя, запрашивающего информацию
      * @param friendId идентификатор пользователя, с которым необходимо сравнить список фильмов
@@ -178,12 +299,40 @@ public class FilmService implements BaseFilmService {
      */
     @Override
     public List<Film> getCommonFilms(int userId, int friendId) {
-        return films.getCommonFilms(userId, friendId);
+        return getFilmsInOrder(popularFilms.orderByPopularity(userLikes.getCommonFilms(userId, friendId)));
     }
 
     @Override
     public void deleteFilm(int id) {
         films.deleteFilmById(id);
+        filmCache.invalidate(id);
+        popularFilms.removeFilm(id);
+        searchIndex.removeFilm(id);
+        recommendations.removeFilm(id);
+        userLikes.removeFilm(id);
+    }
+
+    /**
+     * Метод возвращает статистику работы кэша фильмов.
+     *
+     * @return статистика кэша
+     */
+    @Override
+    public FilmCache.Stats getFilmCacheStats() {
+        return filmCache.getStats();
+    }
+
+    /**
+     * Метод пересчитывает сохраненные счетчики лайков всех фильмов.
+     *
+     * @return количество фильмов, счетчик лайков которых был исправлен
+     */
+    @Override
+    public int rebuildLikeCounters() {
+        log.info("Пересчет счетчиков лайков фильмов на сервисе");
+        int updatedFilms = likes.rebuildLikeCounters();
+        popularFilms.load();
+        return updatedFilms;
     }
 
     /**
@@ -192,7 +341,7 @@ public class FilmService implements BaseFilmService {
      *
      * @param film фильм, в котором нужно проверить ID и присвоить полям названия
      */
-    private void validateAndUpdateFilm(Film film) {
+    void validateAndUpdateFilm(Film film) {
         film.setMpa(getMpa(film));
         film.setGenres(getGenres(film).stream().toList());
         film.setDirectors(getDirectors(film));
@@ -200,14 +349,12 @@ public class FilmService implements BaseFilmService {
 
     private TreeSet<Genre> getGenres(Film film) {
         var genres = film.getGenres();
-        var allGenres = utils.getAllGenres();
         var sortedGenres = new TreeSet<>(Genre::compareTo);
         if (genres != null && !genres.isEmpty()) {
-            if (genres.stream().anyMatch(genre -> genre.getId() > allGenres.size())) {
-                throw new EntityValidateException(thisService,
-                        "Ошибка валидации параметров запроса", "ID жанра превышает число известных в БД");
-            }
-            genres.forEach(genre -> genre.setName(allGenres.get(genre.getId() - 1).getName()));
+            genres.forEach(genre -> genre.setName(referenceData.getGenre(genre.getId())
+                    .orElseThrow(() -> new EntityValidateException(thisService,
+                            "Ошибка валидации параметров запроса", "ID жанра превышает число известных в БД"))
+                    .getName()));
             sortedGenres.addAll(genres);
         }
         return sortedGenres;
@@ -215,14 +362,10 @@ public class FilmService implements BaseFilmService {
 
     private TreeSet<Director> getDirectors(Film film) {
         var directors = film.getDirectors();
-        var allDirectors = utils.getAllDirectors();
         var sortedDirectors = new TreeSet<>(Director::compareTo);
         if (directors != null) {
             directors.forEach(director -> {
-                var foundDirector = allDirectors
-                        .stream()
-                        .filter(d -> d.getId() == director.getId())
-                        .findFirst()
+                var foundDirector = referenceData.getDirector(director.getId())
                         .orElseThrow(() -> new EntityValidateException(thisService,
                                 "Поиск режиссера ID " + director.getId(), "Режиссера нет в БД"));
                 sortedDirectors.add(foundDirector);
@@ -233,24 +376,22 @@ public class FilmService implements BaseFilmService {
 
     public Mpa getMpa(Film film) {
         var filmMpa = film.getMpa();
-        var filmMpaId = DEFAULT_MPA_RATING;
-        var allMpa = utils.getAllMpa();
-        if (filmMpa == null) {
-            filmMpa = new Mpa(filmMpaId, allMpa.getFirst().getName());
-        } else {
-            filmMpaId = filmMpa.getId();
-            if (filmMpaId > allMpa.size()) {
-                throw new EntityValidateException(thisService,
-                        "Ошибка валидации параметров запроса", "ID MPA-рейтинга превышает число известных в БД");
-            } else {
-                filmMpa = new Mpa(filmMpaId, allMpa.get(filmMpaId - 1).getName());
-            }
-        }
-        return filmMpa;
+        var filmMpaId = filmMpa == null ? DEFAULT_MPA_RATING : filmMpa.getId();
+        return referenceData.getMpa(filmMpaId).orElseThrow(() -> new EntityValidateException(thisService,
+                "Ошибка валидации параметров запроса", "ID MPA-рейтинга превышает число известных в БД"));
     }
 
+    /**
+     * Метод ищет фильмы по подстроке в названии и/или в имени режиссера.
+     *
+     * @param query            строка поиска
+     * @param searchParameters поля поиска: title, director или оба через запятую
+     * @param limit            максимальное количество найденных фильмов, если не указано - без ограничения
+     * @param offset           количество пропускаемых найденных фильмов
+     * @return найденные фильмы в порядке убывания количества лайков
+     */
     @Override
-    public List<Film> getFilmsByTitleAndDirector(String query, String searchParameters) {
+    public List<Film> getFilmsByTitleAndDirector(String query, String searchParameters, Integer limit, int offset) {
 
         log.info("Начали проверять вошедшие параметры {}", searchParameters);
 
@@ -269,7 +410,7 @@ public class FilmService implements BaseFilmService {
             }
             director = query;
             title = query;
-            filmsList.addAll(films.search(title, director));
+            filmsList.addAll(search(title, director, limit == null ? Integer.MAX_VALUE : limit, offset));
 
             //Т.к. не сработало правило на 2 параметра через запятую - проверяем одинарный параметр фильтрации
         } else {
@@ -282,11 +423,47 @@ public class FilmService implements BaseFilmService {
             } else if (searchParameters.equals(By.TITLE.toString().toLowerCase())) {
                 title = query;
             }
-            filmsList.addAll(films.search(title, director));
+            filmsList.addAll(search(title, director, limit == null ? Integer.MAX_VALUE : limit, offset));
         }
         return filmsList;
     }
 
+    /**
+     * Метод ищет фильмы по подстроке в названии и/или в имени режиссера через поисковый индекс.
+     * Запросы короче длины n-граммы индекса выполняются в БД.
+     *
+     * @param title    подстрока названия, пустая строка - поиск по названию не выполняется
+     * @param director подстрока имени режиссера, пустая строка - поиск по режиссеру не выполняется
+     * @param limit    максимальное количество найденных фильмов
+     * @param offset   количество пропускаемых найденных фильмов
+     * @return найденные фильмы в порядке убывания количества лайков
+     */
+    private List<Film> search(String title, String director, int limit, int offset) {
+        var foundFilmIds = searchIndex.search(title, director);
+        if (foundFilmIds.isEmpty()) {
+            log.info("Запрос короче {} символов, поиск выполняется в БД", FilmSearchIndex.GRAM_LENGTH);
+            return films.search(title, director, limit, offset);
+        }
+        var filmIds = foundFilmIds.get();
+        int from = Math.min(offset, filmIds.size());
+        return getFilmsInOrder(filmIds.subList(from, (int) Math.min((long) from + limit, filmIds.size())));
+    }
+
+    /**
+     * Метод читает фильмы из БД одним запросом и возвращает их в порядке переданного списка ID.
+     *
+     * @param filmIds упорядоченный список ID фильмов
+     * @return фильмы в том же порядке, отсутствующие в БД ID пропускаются
+     */
+    private List<Film> getFilmsInOrder(List<Integer> filmIds) {
+        Map<Integer, Film> foundFilms = new HashMap<>();
+        films.getFilmsByIds(filmIds).forEach(film -> foundFilms.put(film.getId(), film));
+        return filmIds.stream()
+                .map(foundFilms::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     enum By {
         DIRECTOR, TITLE
     }
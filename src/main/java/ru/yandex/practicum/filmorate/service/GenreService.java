@@ -4,8 +4,9 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.entity.Genre;
-import ru.yandex.practicum.filmorate.repository.UtilRepository;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 
 import java.util.List;
 
@@ -17,7 +18,11 @@ import java.util.List;
 @Service
 @AllArgsConstructor
 public class GenreService implements BaseGenreService {
-    private final UtilRepository util;
+    private final String thisService = this.getClass().getName();
+    /**
+     * Подключение кэша справочных данных.
+     */
+    private final ReferenceDataCache referenceData;
 
 
     /**
@@ -29,7 +34,8 @@ public class GenreService implements BaseGenreService {
     @Override
     public Genre getGenre(int id) {
         log.info("Получение названия жанра и его ID ");
-        return util.getGenreById(id);
+        return referenceData.getGenre(id).orElseThrow(() -> new EntityNotFoundException(
+                thisService, referenceData.getClass().getName(), String.format("Жанр с ID %d не найден в БД", id)));
     }
 
     /**
@@ -40,6 +46,6 @@ public class GenreService implements BaseGenreService {
     @Override
     public List<Genre> getAllGenres() {
         log.info("Получение списка всех имеющихся жанров фильмов");
-        return util.getAllGenres();
+        return referenceData.getAllGenres();
     }
 }
@@ -4,8 +4,9 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.entity.Mpa;
-import ru.yandex.practicum.filmorate.repository.UtilRepository;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 
 import java.util.List;
 
@@ -14,10 +15,11 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class MpaService implements BaseMpaService {
+    private final String thisService = this.getClass().getName();
     /**
-     * Подключение репозитория для работы с MPA-рейтингами.
+     * Подключение кэша справочных данных, в том числе MPA-рейтингов.
      */
-    private final UtilRepository util;
+    private final ReferenceDataCache referenceData;
 
     /**
      * Метод возвращает MPA-рейтинг {@link Mpa} по указанному идентификатору
@@ -27,7 +29,8 @@ public class MpaService implements BaseMpaService {
      */
     @Override
     public Mpa getMpa(int mpaId) {
-        return util.getMpaById(mpaId);
+        return referenceData.getMpa(mpaId).orElseThrow(() -> new EntityNotFoundException(
+                thisService, referenceData.getClass().getName(), String.format("MPA с ID %d не найден в БД", mpaId)));
     }
 
     /**
@@ -37,6 +40,6 @@ public class MpaService implements BaseMpaService {
      */
     @Override
     public List<Mpa> getAllMpa() {
-        return util.getAllMpa();
+        return referenceData.getAllMpa();
     }
 }
@@ -7,6 +7,7 @@ import ru.yandex.practicum.filmorate.entity.Event;
 import ru.yandex.practicum.filmorate.entity.EventOperation;
 import ru.yandex.practicum.filmorate.entity.EventType;
 import ru.yandex.practicum.filmorate.entity.Review;
+import ru.yandex.practicum.filmorate.entity.ReviewCursor;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.InternalServiceException;
 import ru.yandex.practicum.filmorate.repository.*;
@@ -20,9 +21,9 @@ import java.util.Collection;
 public class ReviewService implements BaseReviewService {
     private final ReviewRepository reviewRepository;
     private final ReviewLikeRepository reviewLikeRepository;
-    private final EventRepository eventRepository;
-    private final FilmRepository filmRepository;
+    private final EventWriter eventWriter;
     private final UserRepository userRepository;
+    private final FilmRepository filmRepository;
 
     @Override
     public Collection<Review> get(Integer filmId, Integer count) {
@@ -34,6 +35,23 @@ public class ReviewService implements BaseReviewService {
         return reviewRepository.get(filmId, count);
     }
 
+    @Override
+    public Collection<Review> get(Integer filmId, ReviewCursor after, Integer count) {
+        log.info("{}: Получение {} отзывов после позиции {} / отзывов по идентификатору фильма {}",
+                getClass().getSimpleName(),
+                count,
+                after,
+                filmId
+        );
+        return reviewRepository.get(filmId, after, count);
+    }
+
+    @Override
+    public ReviewCursor parseCursor(String cursor) {
+        return CursorParser.parse(cursor, getClass().getSimpleName(), "списке отзывов", "полезность:ID",
+                (useful, reviewId) -> new ReviewCursor(Math.toIntExact(useful), Math.toIntExact(reviewId)));
+    }
+
     @Override
     public Review getById(Integer reviewId) {
         log.info("{}: Получение отзывов по идентификатору {}", getClass().getSimpleName(), reviewId);
@@ -58,7 +76,7 @@ public class ReviewService implements BaseReviewService {
         Review resultReview = reviewRepository.create(review).orElseThrow(
                 () -> new InternalServiceException(getClass().getSimpleName(), "", "Ошибка добавления отзыва")
         );
-        eventRepository.create(new Event(Instant.now().toEpochMilli(), review.getUserId(), EventType.REVIEW.toString(), EventOperation.ADD.toString(),
+        eventWriter.write(new Event(Instant.now().toEpochMilli(), review.getUserId(), EventType.REVIEW.toString(), EventOperation.ADD.toString(),
                 review.getReviewId()));
         return resultReview;
     }
@@ -72,8 +90,9 @@ public class ReviewService implements BaseReviewService {
                         "",
                         String.format("Отзыв с ид %s не найден", review.getReviewId()))
         );
-        eventRepository.create(new Event(Instant.now().toEpochMilli(), review.getUserId(), EventType.REVIEW.toString(), EventOperation.UPDATE.toString(),
-                review.getReviewId()));
+        // Событие относится к автору отзыва, а не к пользователю из запроса: автор берется из REVIEW.USER_ID
+        eventWriter.write(new Event(Instant.now().toEpochMilli(), resultReview.getUserId(), EventType.REVIEW.toString(),
+                EventOperation.UPDATE.toString(), review.getReviewId()));
         return resultReview;
     }
 
@@ -82,7 +101,7 @@ public class ReviewService implements BaseReviewService {
         int userId = getById(reviewId).getUserId();
         log.info("{}: Удаление отзыва по идентификатору {}", getClass().getSimpleName(), reviewId);
         reviewRepository.delete(reviewId);
-        eventRepository.create(new Event(Instant.now().toEpochMilli(), userId, EventType.REVIEW.toString(),
+        eventWriter.write(new Event(Instant.now().toEpochMilli(), userId, EventType.REVIEW.toString(),
                 EventOperation.REMOVE.toString(),
                 reviewId));
     }
@@ -112,10 +131,10 @@ public class ReviewService implements BaseReviewService {
     }
 
     private boolean isFilmExist(Integer filmId) {
-        return filmRepository.getFilm(filmId).isPresent();
+        return filmRepository.existsFilm(filmId);
     }
 
     private boolean isUserExist(Integer userId) {
-        return userRepository.getUser(userId).isPresent();
+        return userRepository.existsUser(userId);
     }
 }
@@ -4,21 +4,24 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
 import ru.yandex.practicum.filmorate.entity.*;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.exception.SearchLimitExceededException;
+import ru.yandex.practicum.filmorate.index.FriendsIndex;
+import ru.yandex.practicum.filmorate.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.index.UserLikesIndex;
 import ru.yandex.practicum.filmorate.repository.*;
 
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Сервис содержит логику работы с пользователями
@@ -46,7 +49,24 @@ public class UserService implements BaseUserService {
      */
     private final LikeRepository likes;
 
-    private final EventRepository events;
+    private final EventWriter events;
+    /**
+     * Подключение индекса популярности фильмов.
+     */
+    private final PopularFilmsIndex popularFilms;
+    /**
+     * Подключение индекса лайков пользователей.
+     */
+    private final UserLikesIndex userLikes;
+    /**
+     * Подключение индекса дружбы пользователей.
+     */
+    private final FriendsIndex friendsIndex;
+    /**
+     * Подключение хранилища рассчитанных рекомендаций.
+     */
+    private final RecommendationCache recommendations;
+
     /**
      * Метод создает запрос на дружбу, или подтверждает уже имеющийся запрос.
      *
@@ -58,7 +78,8 @@ public class UserService implements BaseUserService {
     public void addFriend(int userId, int friendId) {
         log.info("Запрос/подтверждение дружбы пользователей {} и {}", userId, friendId);
         friends.addFriend(userId, friendId);
-        events.create(new Event(Instant.now().toEpochMilli(), userId, EventType.FRIEND.toString(), EventOperation.ADD.toString(),
+        friendsIndex.addFriend(userId, friendId);
+        events.write(new Event(Instant.now().toEpochMilli(), userId, EventType.FRIEND.toString(), EventOperation.ADD.toString(),
                 friendId));
     }
 
@@ -72,12 +93,14 @@ public class UserService implements BaseUserService {
     public void deleteFriend(int userId, int friendId) {
         log.info("Удаление запроса/подтверждения дружбы пользователей {} и {}", userId, friendId);
         friends.deleteFriend(userId, friendId);
-        events.create(new Event(Instant.now().toEpochMilli(), userId, EventType.FRIEND.toString(), EventOperation.REMOVE.toString(),
+        friendsIndex.deleteFriend(userId, friendId);
+        events.write(new Event(Instant.now().toEpochMilli(), userId, EventType.FRIEND.toString(), EventOperation.REMOVE.toString(),
                 friendId));
     }
 
     /**
-     * Метод возвращает список друзей указанного пользователя.
+     * Метод возвращает список друзей указанного пользователя. ID друзей берутся из индекса дружбы,
+     * сами пользователи читаются из БД одним запросом.
      *
      * @param id ID нужного пользователя
      * @return список его друзей (может быть пустым, если нет друзей, отправивших встречный запрос/подтверждение)
@@ -85,11 +108,13 @@ public class UserService implements BaseUserService {
     @Override
     public List<User> getFriends(int id) {
         log.info("Получение списка друзей пользователя");
-        return friends.getFriends(id);
+        checkUserExists(id);
+        return users.getUsersByIds(toList(friendsIndex.getFriends(id)));
     }
 
     /**
-     * Метод возвращает список общих друзей двух пользователей
+     * Метод возвращает список общих друзей двух пользователей. Общие друзья находятся пересечением
+     * отсортированных массивов друзей из индекса дружбы, сами пользователи читаются из БД одним запросом.
      *
      * @param userId   ID первого пользователя
      * @param friendId ID второго пользователя
@@ -98,7 +123,47 @@ public class UserService implements BaseUserService {
     @Override
     public List<User> getCommonFriends(int userId, int friendId) {
         log.info("Получение списка общих друзей двух пользователей:");
-        return friends.getCommonFriends(userId, friendId);
+        checkUserExists(userId);
+        checkUserExists(friendId);
+        return users.getUsersByIds(toList(friendsIndex.getCommonFriends(userId, friendId)));
+    }
+
+    /**
+     * Метод возвращает предложения друзей. Кандидаты и их порядок берутся из индекса дружбы,
+     * сами пользователи читаются из БД одним запросом и расставляются в порядке индекса.
+     *
+     * @param userId ID пользователя
+     * @param limit  наибольшее количество предложений
+     * @return список предлагаемых пользователей, может быть пустым
+     */
+    @Override
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        log.info("Получение предложений друзей пользователя ID {}", userId);
+        checkUserExists(userId);
+        return getUsersInOrder(toList(friendsIndex.getSuggestions(userId, limit)));
+    }
+
+    /**
+     * Метод возвращает кратчайшую цепочку друзей между двумя пользователями. Цепочка ищется
+     * по индексу дружбы, сами пользователи читаются из БД одним запросом.
+     *
+     * @param userId  ID первого пользователя
+     * @param otherId ID второго пользователя
+     * @return пользователи цепочки от первого до второго включительно, пустой список, если цепочки нет
+     * @throws SearchLimitExceededException если поиск прекращен по ограничениям и цепочка может существовать
+     */
+    @Override
+    public List<User> getFriendPath(int userId, int otherId) {
+        log.info("Поиск цепочки друзей от пользователя ID {} до пользователя ID {}", userId, otherId);
+        checkUserExists(userId);
+        checkUserExists(otherId);
+        var path = friendsIndex.findPath(userId, otherId);
+        if (path.limitReached()) {
+            throw new SearchLimitExceededException(thisService, friendsIndex.getClass().getName(), String.format(
+                    "Цепочка друзей от пользователя ID %d до пользователя ID %d не найдена в пределах ограничений"
+                            + " поиска", userId, otherId));
+        }
+        return getUsersInOrder(toList(path.userIds()));
     }
 
     /**
@@ -138,6 +203,30 @@ public class UserService implements BaseUserService {
         return users.getAllUsers();
     }
 
+    /**
+     * Метод возвращает страницу пользователей фильмотеки в порядке их ID.
+     *
+     * @param afterId ID последнего пользователя предыдущей страницы, 0 - для первой страницы
+     * @param limit   размер страницы
+     * @return список пользователей, может быть пустым
+     */
+    @Override
+    public List<User> getUsers(int afterId, int limit) {
+        log.info("Получение страницы аккаунтов пользователей после ID {}, размер страницы {}", afterId, limit);
+        return users.getUsersPage(afterId, limit);
+    }
+
+    /**
+     * Метод последовательно передает получателю всех пользователей фильмотеки в порядке их ID.
+     *
+     * @param consumer получатель пользователей
+     */
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        log.info("Потоковая выгрузка всех аккаунтов пользователей");
+        users.streamUsers(consumer);
+    }
+
     /**
      * Метод возвращает пользователя по его ID
      *
@@ -153,110 +242,70 @@ public class UserService implements BaseUserService {
     }
 
     /**
-     * Метод возвращает список рекомендуемых фильмов пользователю по его ID
+     * Метод проверяет, что пользователь существует, одним запросом по первичному ключу
      *
      * @param userId ID пользователя
-     * @return список рекомендуемых фильмов
      */
     @Override
-    public List<Film> getRecommendations(int userId) {
-        log.info("Получение фильмов рекомендуемых пользователю ID {}", userId);
-
-        Map<Integer, List<Integer>> likesByUserId;
-        List<Like> likesList = likes.getLikes();
-
-        if (!likes.isUserHasLikes(userId)) {
-            return new ArrayList<>();
+    public void checkUserExists(int userId) {
+        if (!users.existsUser(userId)) {
+            throw new EntityNotFoundException(thisService, users.getClass().getName(),
+                    String.format("Пользователь ID %d не найден на сервере", userId));
         }
-
-        if (likesList.isEmpty()) {
-            throw new EntityNotFoundException(thisService, likes.getClass().getName(),
-                    "Таблица likes пуста");
-        }
-        likesByUserId = likesListToMap(likesList);
-
-        Map<Integer, Double> filmsMatchPercents = new HashMap<>();
-
-        filmsMatchPercents = getFilmsMatchPercents(userId, likesByUserId);
-
-        Set<Integer> filmsIdsOfMostSimilarUsers = new HashSet<>();
-
-        Optional<Double> optionalMaxMatchPercent = filmsMatchPercents.values().stream()
-                .max(Comparator.comparing(Double::doubleValue));
-
-        if (optionalMaxMatchPercent.isPresent()) {
-            Double maxPercent = optionalMaxMatchPercent.get();
-
-            if (maxPercent == 0.0)
-                return new ArrayList<>();
-
-            for (int otherUserId : filmsMatchPercents.keySet()) {
-                if (filmsMatchPercents.get(otherUserId) >= maxPercent) {
-                    for (int i = 0; i < likesByUserId.get(otherUserId).size(); i++) {
-                        if (!likesByUserId.get(userId).contains(likesByUserId.get(otherUserId).get(i))) {
-                            filmsIdsOfMostSimilarUsers.add(likesByUserId.get(otherUserId).get(i));
-                        }
-                    }
-                }
-            }
-        }
-
-        return films.getFilmsByIds(new ArrayList<>(filmsIdsOfMostSimilarUsers));
     }
 
-    @Override
-    public void deleteUserById(int userId) {
-        getUser(userId);
-        users.removeUserById(userId);
-    }
-
-
     /**
-     * Метод преобразует список с объектами Like в HashMap вида:
-     * key: id пользователя, value: список понравившихся фильмов
+     * Метод возвращает список рекомендуемых фильмов пользователю по его ID.
+     * Рекомендации считаются по индексу лайков среди пользователей, у которых есть общие с ним фильмы:
+     * берутся фильмы пользователей с наибольшей долей общих фильмов среди их лайков,
+     * которым пользователь еще не поставил лайк.
      *
-     * @param likesList список объектов Like
-     * @return HashMap с лайкнутыми фильмами, разделенных по ID пользовтелей
+     * @param userId ID пользователя
+     * @return список рекомендуемых фильмов
      */
-    private Map<Integer, List<Integer>> likesListToMap(List<Like> likesList) {
-        Map<Integer, List<Integer>> likesByUserId = new HashMap<>();
-        for (Like like : likesList) {
-            if (likesByUserId.get(like.getUserId()) == null) {
-                List<Integer> films = new ArrayList<>();
-                likesByUserId.put(like.getUserId(), films);
-            }
-            likesByUserId.get(like.getUserId()).add(like.getFilmId());
-        }
-        return likesByUserId;
+    @Override
+    public List<Film> getRecommendations(int userId) {
+        return getStoredRecommendations(userId).films();
     }
 
     /**
-     * Метод возвращает HashMap с процентами совпадения
-     * проставленных лайков пользователя с id = userId
-     * с другими пользователями
+     * Метод возвращает рекомендации пользователю из хранилища рассчитанных рекомендаций.
+     * Рекомендации, устаревшие после изменения лайков, отдаются до их фонового пересчета;
+     * если рекомендации пользователю еще не рассчитывались, они рассчитываются сразу.
      *
-     * @param userId        id пользователя
-     * @param likesByUserId HashMap с лайкнутыми фильмами, разделенных по ID пользовтелей
-     * @return HashMap с долями совпадения
+     * @param userId ID пользователя
+     * @return рекомендованные фильмы и время расчета рекомендаций
      */
-    private Map<Integer, Double> getFilmsMatchPercents(Integer userId, Map<Integer, List<Integer>> likesByUserId) {
-        Map<Integer, Double> filmsMatchPercent = new HashMap<>();
-        for (int uid : likesByUserId.keySet()) {
-            filmsMatchPercent.put(uid, 0.0);
-        }
-        for (int otherUserId : likesByUserId.keySet()) {
-            if (otherUserId == userId)
-                continue;
-            for (int j = 0; j < likesByUserId.get(userId).size(); j++) {
-                if (likesByUserId.get(otherUserId).contains(likesByUserId.get(userId).get(j))) {
-                    filmsMatchPercent.put(otherUserId,
-                            (filmsMatchPercent.get(otherUserId) + 1.0 / likesByUserId.get(otherUserId).size()));
-                }
-            }
-        }
+    @Override
+    public FilmRecommendations getStoredRecommendations(int userId) {
+        log.info("Получение фильмов рекомендуемых пользователю ID {}", userId);
+        checkUserExists(userId);
+        var stored = recommendations.getRecommendations(userId);
+        return new FilmRecommendations(films.getFilmsByIds(toList(stored.filmIds())), stored.computedAt());
+    }
 
-        return filmsMatchPercent;
+    @Override
+    public void deleteUserById(int userId) {
+        checkUserExists(userId);
+        var likedFilmIds = likes.getUserLikedFilmIds(userId);
+        users.removeUserById(userId);
+        likedFilmIds.forEach(filmId -> popularFilms.changeLikes(filmId, -1));
+        recommendations.removeUser(userId);
+        userLikes.removeUser(userId);
+        friendsIndex.removeUser(userId);
     }
-}
 
 
+    private List<User> getUsersInOrder(List<Integer> userIds) {
+        Map<Integer, User> foundUsers = new HashMap<>();
+        users.getUsersByIds(userIds).forEach(user -> foundUsers.put(user.getId(), user));
+        return userIds.stream()
+                .map(foundUsers::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<Integer> toList(int[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+}
@@ -14,9 +14,12 @@ CREATE TABLE IF NOT EXISTS FILMS (
 	FILM_RELEASE_DATE DATE NOT NULL,
 	FILM_DURATION INTEGER NOT NULL,
 	FILM_MPA_RATING_FK INTEGER NOT NULL REFERENCES MPA_RATINGS(MPA_RATING_ID_PK),
-	FILM_DESCRIPTION VARCHAR(200) NOT NULL
+	FILM_DESCRIPTION VARCHAR(200) NOT NULL,
+	FILM_LIKE_COUNT INTEGER DEFAULT 0 NOT NULL
 );
 
+CREATE INDEX IF NOT EXISTS FILMS_LIKE_COUNT_IDX ON FILMS (FILM_LIKE_COUNT DESC, FILM_ID_PK);
+
 CREATE TABLE IF NOT EXISTS GENRES (
 	GENRE_ID_PK INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
 	GENRE_NAME VARCHAR(50) NOT NULL UNIQUE
@@ -66,17 +69,24 @@ CREATE TABLE IF NOT EXISTS FRIENDSHIP_STATUSES (
 	)
 );
 
+CREATE INDEX IF NOT EXISTS FRIENDSHIP_USER_IDX ON FRIENDSHIP_STATUSES (FS_USER_ID, FS_FRIEND_ID);
+
 CREATE TABLE IF NOT EXISTS REVIEW (
 	REVIEW_ID INTEGER NOT NULL AUTO_INCREMENT,
 	CONTENT VARCHAR(255) NOT NULL,
 	POSITIVE BOOLEAN NOT NULL,
 	USER_ID INTEGER NOT NULL,
 	FILM_ID INTEGER NOT NULL,
+	USEFUL INTEGER DEFAULT 0 NOT NULL,
 	CONSTRAINT REVIEW_PK PRIMARY KEY (REVIEW_ID),
 	CONSTRAINT REVIEW_USERS_FK FOREIGN KEY (USER_ID) REFERENCES USERS(USER_ID_PK) ON DELETE CASCADE,
 	CONSTRAINT REVIEW_FILMS_FK FOREIGN KEY (FILM_ID) REFERENCES FILMS(FILM_ID_PK) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS REVIEW_FILM_USEFUL_IDX ON REVIEW (FILM_ID, USEFUL DESC, REVIEW_ID);
+
+CREATE INDEX IF NOT EXISTS REVIEW_USEFUL_IDX ON REVIEW (USEFUL DESC, REVIEW_ID);
+
 CREATE TABLE IF NOT EXISTS REVIEW_LIKE (
 	REVIEW_ID INTEGER NOT NULL,
 	USER_ID INTEGER NOT NULL,
@@ -97,6 +107,20 @@ CREATE TABLE IF NOT EXISTS EVENTS (
     CONSTRAINT EVENT_USERS_FK FOREIGN KEY (USER_ID) REFERENCES USERS(USER_ID_PK) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS EVENTS_USER_TIMESTAMP_IDX ON EVENTS (USER_ID, TIMESTAMP, EVENT_ID);
+
+CREATE INDEX IF NOT EXISTS EVENTS_TIMESTAMP_IDX ON EVENTS (TIMESTAMP, EVENT_ID);
+
+CREATE TABLE IF NOT EXISTS EVENTS_ARCHIVE (
+    EVENT_ID INTEGER NOT NULL,
+    TIMESTAMP BIGINT NOT NULL,
+    USER_ID INTEGER NOT NULL,
+    EVENT_TYPE_NAME VARCHAR(6) NOT NULL,
+    OPERATION_NAME VARCHAR(6) NOT NULL,
+    ENTITY_ID INTEGER NOT NULL,
+    CONSTRAINT EVENT_ARCHIVE_PK PRIMARY KEY (EVENT_ID)
+);
+
 MERGE 
 	INTO
 	MPA_RATINGS (MPA_RATING_ID_PK, MPA_RATING_NAME)
@@ -8,21 +8,28 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.ComponentScan;
 import ru.yandex.practicum.filmorate.entity.*;
+import ru.yandex.practicum.filmorate.repository.EventRepository;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.FriendRepository;
 import ru.yandex.practicum.filmorate.repository.LikeRepository;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 import ru.yandex.practicum.filmorate.repository.UtilRepository;
+import ru.yandex.practicum.filmorate.service.EventCompactor;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.TreeSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
-@JdbcTest
+@JdbcTest(properties = "filmorate.events.write-mode=SYNC")
 @AutoConfigureTestDatabase
 @ComponentScan
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -33,6 +40,9 @@ class FilmoRateApplicationTests {
     private final UserRepository users;
     private final LikeRepository likes;
     private final UtilRepository utils;
+    private final UserService userService;
+    private final EventRepository events;
+    private final ReviewService reviewService;
     private Optional<Film> film;
     private Optional<User> user;
     private Genre genre;
@@ -50,6 +60,17 @@ class FilmoRateApplicationTests {
                         assertThat(film).hasFieldOrPropertyWithValue("id", 1));
     }
 
+    @Test
+    @DisplayName("Проверка наличия фильмов и пользователей в БД без чтения записей")
+    public void testExistsFilmAndUser() {
+        assertThat(films.existsFilm(1)).isTrue();
+        assertThat(films.existsFilm(6)).isFalse();
+        assertThat(users.existsUser(5)).isTrue();
+        assertThat(users.existsUser(6)).isFalse();
+        users.removeUserById(5);
+        assertThat(users.existsUser(5)).isFalse();
+    }
+
     @Test
     @DisplayName("Фильм6 не существует в БД")
     public void testGetUnknownFilm() {
@@ -197,79 +218,226 @@ class FilmoRateApplicationTests {
         assertThat(listUsers).hasSize(5);
     }
 
+    @Test
+    @DisplayName("Фильмы и пользователи читаются из БД страницами и потоком в порядке ID")
+    public void testGetFilmsAndUsersByPagesAndStream() {
+
+        assertThat(films.getFilmsPage(0, 2)).extracting(Film::getId).containsExactly(1, 2);
+        assertThat(films.getFilmsPage(2, 2)).extracting(Film::getId).containsExactly(3, 4);
+        assertThat(films.getFilmsPage(4, 2)).extracting(Film::getId).containsExactly(5);
+        assertThat(films.getFilmsPage(5, 2)).isEmpty();
+        assertThat(users.getUsersPage(3, 10)).extracting(User::getId).containsExactly(4, 5);
+
+        List<Film> streamedFilms = new ArrayList<>();
+        films.streamFilms(streamedFilms::add);
+        assertThat(streamedFilms).usingRecursiveFieldByFieldElementComparator().isEqualTo(films.getFilms());
+        List<User> streamedUsers = new ArrayList<>();
+        users.streamUsers(streamedUsers::add);
+        assertThat(streamedUsers).usingRecursiveFieldByFieldElementComparator().isEqualTo(users.getAllUsers());
+    }
+
     @Test
     @DisplayName("Добавляем юзера 2 в друзья юзеру 1, и удаляем")
     public void testAddFriend() {
-        var friendListUser1 = friends.getFriends(1);
+        var friendListUser1 = userService.getFriends(1);
         assertThat(friendListUser1).hasSize(0);
-        friends.addFriend(1, 2);
-        friendListUser1 = friends.getFriends(1);
+        userService.addFriend(1, 2);
+        friendListUser1 = userService.getFriends(1);
         assertThat(friendListUser1).hasSize(1);
         var friend = friendListUser1.getFirst();
         assertThat(friend)
                 .hasFieldOrPropertyWithValue("id", 2)
                 .hasFieldOrPropertyWithValue("name", "name2");
-        friends.deleteFriend(1, 2);
-        friendListUser1 = friends.getFriends(1);
+        userService.deleteFriend(1, 2);
+        friendListUser1 = userService.getFriends(1);
         assertThat(friendListUser1).hasSize(0);
     }
 
     @Test
     @DisplayName("Получение списка друзей пользователя")
     public void testGetFriends() {
-        var friendListUser1 = friends.getFriends(1);
+        var friendListUser1 = userService.getFriends(1);
         assertThat(friendListUser1).hasSize(0);
-        friends.addFriend(1, 2);
-        friends.addFriend(1, 3);
-        friends.addFriend(1, 4);
-        friends.addFriend(1, 5);
-        friendListUser1 = friends.getFriends(1);
+        userService.addFriend(1, 2);
+        userService.addFriend(1, 3);
+        userService.addFriend(1, 4);
+        userService.addFriend(1, 5);
+        friendListUser1 = userService.getFriends(1);
         assertThat(friendListUser1).hasSize(4);
     }
 
+    @Test
+    @DisplayName("Друзья и общие друзья из индекса дружбы совпадают с данными из БД")
+    public void testFriendsFromIndexMatchDb() {
+        var random = new Random(7);
+        for (int userId = 1; userId <= 5; userId++) {
+            for (int friendId = 1; friendId <= 5; friendId++) {
+                if (userId != friendId && random.nextBoolean()) {
+                    userService.addFriend(userId, friendId);
+                }
+            }
+        }
+        var firstUserFriends = userService.getFriends(1);
+        if (!firstUserFriends.isEmpty()) {
+            userService.deleteFriend(1, firstUserFriends.getFirst().getId());
+        }
+        userService.deleteUserById(5);
+        var friendIds = friends.getAllFriendIds();
+        for (int userId = 1; userId <= 4; userId++) {
+            var userFriendIds = new TreeSet<>(friendIds.getOrDefault(userId, List.of()));
+            assertThat(userService.getFriends(userId))
+                    .extracting(User::getId)
+                    .containsExactlyElementsOf(userFriendIds);
+            for (int otherId = 1; otherId <= 4; otherId++) {
+                var commonIds = new TreeSet<>(userFriendIds);
+                commonIds.retainAll(friendIds.getOrDefault(otherId, List.of()));
+                assertThat(userService.getCommonFriends(userId, otherId))
+                        .extracting(User::getId)
+                        .containsExactlyElementsOf(commonIds);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Постраничное чтение ленты событий по позициям совпадает с полной лентой")
+    public void testFeedPagesMatchFullFeed() {
+        for (int i = 0; i < 7; i++) {
+            events.create(new Event(1000L + i / 3, 1, EventType.LIKE.toString(), EventOperation.ADD.toString(), i + 1));
+        }
+        events.create(new Event(999L, 2, EventType.LIKE.toString(), EventOperation.ADD.toString(), 1));
+        var fullFeed = List.copyOf(events.getAllFriendsEventsByUserId(1));
+        assertThat(fullFeed).hasSize(7);
+        assertThat(fullFeed).extracting(Event::getTimestamp).isSorted();
+
+        List<Event> forward = new ArrayList<>();
+        FeedCursor after = null;
+        List<Event> page;
+        do {
+            page = events.getFeedPage(1, after, null, 3);
+            forward.addAll(page);
+            after = page.isEmpty() ? after : FeedCursor.of(page.getLast());
+        } while (!page.isEmpty());
+        assertThat(forward).isEqualTo(fullFeed);
+
+        var lastPage = events.getFeedPage(1, null, FeedCursor.of(fullFeed.get(5)), 3);
+        assertThat(lastPage).isEqualTo(fullFeed.subList(2, 5));
+        var range = events.getFeedPage(1, FeedCursor.of(fullFeed.get(1)), FeedCursor.of(fullFeed.get(5)), 10);
+        assertThat(range).isEqualTo(fullFeed.subList(2, 5));
+    }
+
+    @Test
+    @DisplayName("Событие обновления отзыва попадает в ленту автора отзыва")
+    public void testReviewUpdateEventBelongsToAuthor() {
+        var review = new Review();
+        review.setContent("отзыв");
+        review.setIsPositive(true);
+        review.setUserId(1);
+        review.setFilmId(1);
+        int reviewId = reviewService.create(review).getReviewId();
+        review.setContent("обновленный отзыв");
+        review.setUserId(2);
+        reviewService.update(review);
+
+        assertThat(events.getAllFriendsEventsByUserId(1))
+                .extracting(Event::getOperation, Event::getEntityId)
+                .containsExactly(tuple("ADD", reviewId),
+                        tuple("UPDATE", reviewId));
+        assertThat(events.getAllFriendsEventsByUserId(2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Оценки удаленного пользователя не учитываются в полезности отзывов")
+    public void testRemoveUserRestoresReviewUseful() {
+        var review = new Review();
+        review.setContent("отзыв");
+        review.setIsPositive(true);
+        review.setUserId(2);
+        review.setFilmId(1);
+        int reviewId = reviewService.create(review).getReviewId();
+        reviewService.addLike(reviewId, 1);
+        reviewService.addDislike(reviewId, 3);
+        reviewService.addLike(reviewId, 4);
+        assertThat(reviewService.getById(reviewId).getUseful()).isEqualTo(1);
+
+        users.removeUserById(3);
+        assertThat(reviewService.getById(reviewId).getUseful()).isEqualTo(2);
+        users.removeUserById(1);
+        assertThat(reviewService.getById(reviewId).getUseful()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ограничение ленты событий по сроку хранения и количеству событий пользователя")
+    public void testCompactEvents() {
+        long now = System.currentTimeMillis();
+        long day = Duration.ofDays(1).toMillis();
+        for (int i = 1; i <= 8; i++) {
+            long timestamp = i <= 3 ? now - 10 * day + i : now - 8 + i;
+            events.create(new Event(timestamp, 1, EventType.LIKE.toString(), EventOperation.ADD.toString(), i));
+        }
+        events.create(new Event(now, 2, EventType.LIKE.toString(), EventOperation.ADD.toString(), 1));
+        var compactor = new EventCompactor(events, 7, 3, 2, true);
+
+        var run = compactor.compact();
+
+        assertThat(run.removedByAge()).isEqualTo(3);
+        assertThat(run.removedOverUserLimit()).isEqualTo(2);
+        assertThat(events.getAllFriendsEventsByUserId(1))
+                .extracting(Event::getEntityId)
+                .containsExactly(6, 7, 8);
+        assertThat(events.getAllFriendsEventsByUserId(2)).hasSize(1);
+        List<Event> archived = new ArrayList<>();
+        events.streamArchivedEvents(archived::add);
+        assertThat(archived)
+                .extracting(Event::getEntityId)
+                .containsExactly(1, 2, 3, 4, 5);
+        assertThat(compactor.compact().removedByAge()).isZero();
+        assertThat(compactor.getStats().runs()).isEqualTo(2);
+        assertThat(compactor.getStats().removedOverUserLimit()).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("Получение списка общих друзей двух пользователей")
     public void testGetCommonFriends() {
-        var commonFriendsList = friends.getCommonFriends(1, 2);
+        var commonFriendsList = userService.getCommonFriends(1, 2);
         assertThat(commonFriendsList).hasSize(0);
-        var friendListUser1 = friends.getFriends(1);
+        var friendListUser1 = userService.getFriends(1);
         assertThat(friendListUser1).hasSize(0);
-        var friendListUser2 = friends.getFriends(2);
+        var friendListUser2 = userService.getFriends(2);
         assertThat(friendListUser2).hasSize(0);
-        friends.addFriend(1, 2);
-        friends.addFriend(1, 3);
-        friends.addFriend(2, 1);
-        friends.addFriend(2, 3);
-        friends.addFriend(2, 4);
-        friends.addFriend(3, 4);
-        friends.addFriend(4, 5);
-        var commonFriendUser1 = friends.getCommonFriends(1, 2);
+        userService.addFriend(1, 2);
+        userService.addFriend(1, 3);
+        userService.addFriend(2, 1);
+        userService.addFriend(2, 3);
+        userService.addFriend(2, 4);
+        userService.addFriend(3, 4);
+        userService.addFriend(4, 5);
+        var commonFriendUser1 = userService.getCommonFriends(1, 2);
         assertThat(commonFriendUser1).hasSize(1);
         assertThat(commonFriendUser1.getFirst()).hasFieldOrPropertyWithValue("id", 3);
-        var commonFriendUser2 = friends.getCommonFriends(2, 3);
+        var commonFriendUser2 = userService.getCommonFriends(2, 3);
         assertThat(commonFriendUser2).hasSize(1);
         assertThat(commonFriendUser2.getFirst()).hasFieldOrPropertyWithValue("id", 4);
-        var commonFriendUser3 = friends.getCommonFriends(3, 4);
+        var commonFriendUser3 = userService.getCommonFriends(3, 4);
         assertThat(commonFriendUser3).hasSize(0);
-        var commonFriendUser4 = friends.getCommonFriends(4, 5);
+        var commonFriendUser4 = userService.getCommonFriends(4, 5);
         assertThat(commonFriendUser4).hasSize(0);
     }
 
     @Test
     @DisplayName("Удаляем друзей юзеров")
     public void testDeleteFriend() {
-        var user1FriendList = friends.getFriends(1);
-        var user2FriendList = friends.getFriends(2);
+        var user1FriendList = userService.getFriends(1);
+        var user2FriendList = userService.getFriends(2);
         assertThat(user1FriendList).hasSize(0);
         assertThat(user2FriendList).hasSize(0);
-        friends.addFriend(1, 2);
-        user1FriendList = friends.getFriends(1);
+        userService.addFriend(1, 2);
+        user1FriendList = userService.getFriends(1);
         assertThat(user1FriendList).hasSize(1);
         assertThat(user2FriendList).hasSize(0);
-        friends.deleteFriend(1, 2);
-        user1FriendList = friends.getFriends(1);
+        userService.deleteFriend(1, 2);
+        user1FriendList = userService.getFriends(1);
         assertThat(user1FriendList).hasSize(0);
-        user2FriendList = friends.getFriends(2);
+        user2FriendList = userService.getFriends(2);
         assertThat(user2FriendList).hasSize(0);
     }
 
@@ -303,6 +471,20 @@ class FilmoRateApplicationTests {
         assertThat(rate).isEqualTo(0);
     }
 
+    @Test
+    @DisplayName("Счетчик лайков фильма меняется только при фактическом изменении лайков")
+    public void testFilmLikeCounter() {
+        assertThat(likes.likeFilm(1, 1)).isTrue();
+        assertThat(likes.likeFilm(1, 1)).isFalse();
+        assertThat(likes.likeFilm(1, 2)).isTrue();
+        assertThat(likes.getFilmRate(1)).isEqualTo(2);
+        users.removeUserById(2);
+        assertThat(likes.getFilmRate(1)).isEqualTo(1);
+        assertThat(films.getFilm(1)).hasValueSatisfying(film ->
+                assertThat(film).hasFieldOrPropertyWithValue("rate", 1));
+        assertThat(likes.rebuildLikeCounters()).isEqualTo(0);
+    }
+
     @Test
     @DisplayName("Рейтинги фильмов")
     public void testGetFilmRate() {
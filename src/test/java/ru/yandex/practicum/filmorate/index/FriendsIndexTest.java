@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Набор тестов для FriendsIndex")
+class FriendsIndexTest {
+
+    @Test
+    @DisplayName("Сценарий проверки порядка предложений друзей по количеству общих друзей")
+    void getSuggestionsRankedByMutualFriends() {
+        var friendsIndex = friendsIndex(Map.of(
+                1, List.of(2, 3, 4),
+                2, List.of(1, 3, 5, 6),
+                3, List.of(5, 7),
+                4, List.of(5, 6, 8)), 10);
+
+        assertThat(friendsIndex.getSuggestions(1, 10)).containsExactly(5, 6, 7, 8);
+        assertThat(friendsIndex.getSuggestions(1, 2)).containsExactly(5, 6);
+        assertThat(friendsIndex.getSuggestions(9, 10)).isEmpty();
+
+        friendsIndex.addFriend(1, 5);
+        friendsIndex.deleteFriend(4, 6);
+        assertThat(friendsIndex.getSuggestions(1, 10)).containsExactly(6, 7, 8);
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что друзья с большим количеством друзей при поиске пропускаются")
+    void getSuggestionsSkipsHubs() {
+        var friendsIndex = friendsIndex(Map.of(
+                1, List.of(2, 3),
+                2, List.of(4, 5, 6, 7),
+                3, List.of(4)), 3);
+
+        assertThat(friendsIndex.getSuggestions(1, 10)).containsExactly(4);
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки поиска кратчайшей цепочки друзей между двумя пользователями")
+    void findShortestPath() {
+        var friendsIndex = friendsIndex(Map.of(
+                1, List.of(2, 3),
+                2, List.of(4),
+                3, List.of(5),
+                4, List.of(6),
+                5, List.of(7),
+                7, List.of(6)), 10);
+
+        assertThat(friendsIndex.findPath(1, 6).userIds()).containsExactly(1, 2, 4, 6);
+        assertThat(friendsIndex.findPath(1, 7).userIds()).containsExactly(1, 3, 5, 7);
+        assertThat(friendsIndex.findPath(1, 1).userIds()).containsExactly(1);
+        assertThat(friendsIndex.findPath(6, 1))
+                .satisfies(path -> assertThat(path.userIds()).isEmpty())
+                .satisfies(path -> assertThat(path.limitReached()).isFalse());
+        assertThat(friendsIndex.findPath(1, 8).limitReached()).isFalse();
+
+        friendsIndex.addFriend(3, 6);
+        assertThat(friendsIndex.findPath(1, 6).userIds()).containsExactly(1, 3, 6);
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что поиск цепочки друзей ограничен длиной и количеством просмотренных")
+    void findPathWithinLimits() {
+        Map<Integer, List<Integer>> chain = new HashMap<>();
+        for (int userId = 1; userId < 10; userId++) {
+            chain.put(userId, List.of(userId + 1));
+        }
+
+        var found = friendsIndex(chain, 10, 9, 1000).findPath(1, 10);
+        assertThat(found.userIds()).hasSize(10);
+        assertThat(found.limitReached()).isFalse();
+        for (var path : List.of(friendsIndex(chain, 10, 8, 1000).findPath(1, 10),
+                friendsIndex(chain, 10, 9, 5).findPath(1, 10))) {
+            assertThat(path.userIds()).isEmpty();
+            assertThat(path.limitReached()).isTrue();
+        }
+        assertThat(friendsIndex(chain, 10, 9, 1000).findPath(10, 1).limitReached()).isFalse();
+
+        var shortChain = Map.of(1, List.of(2), 2, List.of(3));
+        var foundOnLastVisit = friendsIndex(shortChain, 10, 9, 3).findPath(1, 3);
+        assertThat(foundOnLastVisit.userIds()).containsExactly(1, 2, 3);
+        assertThat(foundOnLastVisit.limitReached()).isFalse();
+        var meetingBeforeLimit = friendsIndex(Map.of(1, List.of(3, 4, 5)), 10, 9, 4).findPath(1, 3);
+        assertThat(meetingBeforeLimit.userIds()).containsExactly(1, 3);
+        assertThat(meetingBeforeLimit.limitReached()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что найденная цепочка друзей кратчайшая на случайном графе")
+    void findPathMatchesBreadthFirstSearch() {
+        var random = new Random(3);
+        Map<Integer, List<Integer>> friendIds = new HashMap<>();
+        for (int userId = 1; userId <= 300; userId++) {
+            List<Integer> userFriends = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                userFriends.add(1 + random.nextInt(300));
+            }
+            friendIds.put(userId, userFriends.stream().distinct().toList());
+        }
+        var friendsIndex = friendsIndex(friendIds, 10, 20, 100_000);
+
+        for (int i = 0; i < 200; i++) {
+            int from = 1 + random.nextInt(300);
+            int to = 1 + random.nextInt(300);
+            int[] path = friendsIndex.findPath(from, to).userIds();
+            assertThat(path.length - 1).isEqualTo(distance(friendIds, from, to));
+            for (int step = 1; step < path.length; step++) {
+                assertThat(friendIds.get(path[step - 1])).contains(path[step]);
+            }
+        }
+    }
+
+    private int distance(Map<Integer, List<Integer>> friendIds, int from, int to) {
+        Map<Integer, Integer> distances = new HashMap<>(Map.of(from, 0));
+        var queue = new ArrayDeque<>(List.of(from));
+        while (!queue.isEmpty()) {
+            int userId = queue.poll();
+            if (userId == to) {
+                return distances.get(userId);
+            }
+            for (int friendId : friendIds.getOrDefault(userId, List.of())) {
+                if (distances.putIfAbsent(friendId, distances.get(userId) + 1) == null) {
+                    queue.add(friendId);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private FriendsIndex friendsIndex(Map<Integer, List<Integer>> friendIds, int maxHubDegree) {
+        return friendsIndex(friendIds, maxHubDegree, 6, 1000);
+    }
+
+    private FriendsIndex friendsIndex(Map<Integer, List<Integer>> friendIds, int maxHubDegree,
+                                      int maxPathDepth, int maxPathVisited) {
+        var friendRepository = mock(FriendRepository.class);
+        when(friendRepository.getAllFriendIds()).thenReturn(friendIds);
+        var friendsIndex = new FriendsIndex(friendRepository, maxHubDegree, maxPathDepth, maxPathVisited);
+        friendsIndex.load();
+        return friendsIndex;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.entity.Like;
+import ru.yandex.practicum.filmorate.repository.LikeRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+@DisplayName("Набор тестов для MinHashIndex")
+class MinHashIndexTest {
+
+    @Test
+    @DisplayName("Сценарий проверки, что пользователи с одинаковыми лайками всегда становятся кандидатами")
+    void getCandidatesForUsersWithSameLikes() {
+        var userLikes = userLikesIndex(List.of(
+                new Like(1, 10), new Like(1, 11), new Like(1, 12),
+                new Like(2, 10), new Like(2, 11), new Like(2, 12),
+                new Like(3, 20), new Like(3, 21)));
+        var minHash = new MinHashIndex(userLikes, true, 8, 4);
+        minHash.load();
+
+        assertThat(minHash.getCandidates(1)).containsExactly(2);
+        assertThat(minHash.getCandidates(3)).isEmpty();
+        assertThat(minHash.getCandidates(4)).isEmpty();
+
+        userLikes.addLike(3, 10);
+        userLikes.addLike(3, 11);
+        userLikes.addLike(3, 12);
+        userLikes.removeLike(3, 20);
+        userLikes.removeLike(3, 21);
+        minHash.markChanged(3);
+        assertThat(minHash.getCandidates(1)).containsExactly(2, 3);
+
+        userLikes.removeUser(2);
+        minHash.markChanged(2);
+        assertThat(minHash.getCandidates(1)).containsExactly(3);
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки полноты приближенных рекомендаций на пользователях с общими вкусами")
+    void approximateRecommendationsMatchExactForMostUsers() {
+        var userLikes = userLikesIndex(generateLikes(new Random(1), 2000, 2000, 40, 20));
+        var minHash = new MinHashIndex(userLikes, true, 32, 2);
+        minHash.load();
+
+        int matched = 0;
+        int users = 200;
+        for (int userId = 1; userId <= users; userId++) {
+            int[] approximate = userLikes.getRecommendedFilms(userId, minHash.getCandidates(userId));
+            if (Arrays.equals(approximate, userLikes.getRecommendedFilms(userId))) {
+                matched++;
+            }
+        }
+        assertThat(matched).isGreaterThanOrEqualTo(users * 9 / 10);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Сравнение скорости и полноты точных и приближенных рекомендаций на 1 млн лайков")
+    void benchmarkApproximateAgainstExact() {
+        int userCount = 20_000;
+        var userLikes = userLikesIndex(generateLikes(new Random(2), userCount, 20_000, 200, 50));
+        int queries = 2000;
+        for (int[] parameters : new int[][]{{16, 4}, {32, 2}, {64, 2}, {128, 1}}) {
+            var minHash = new MinHashIndex(userLikes, true, parameters[0], parameters[1]);
+            minHash.load();
+            minHash.getCandidates(1);
+            long exactNanos = 0;
+            long approximateNanos = 0;
+            long candidates = 0;
+            int matched = 0;
+            for (int i = 0; i < queries; i++) {
+                int userId = 1 + i * (userCount / queries);
+                long start = System.nanoTime();
+                int[] exact = userLikes.getRecommendedFilms(userId);
+                exactNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                int[] userCandidates = minHash.getCandidates(userId);
+                int[] approximate = userLikes.getRecommendedFilms(userId, userCandidates);
+                approximateNanos += System.nanoTime() - start;
+                candidates += userCandidates.length;
+                if (Arrays.equals(exact, approximate)) {
+                    matched++;
+                }
+            }
+            log.info("bands={} rows={}: точно {} мс, приближенно {} мс, кандидатов {}, совпало {}%",
+                    parameters[0], parameters[1], String.format("%.3f", exactNanos / 1e6 / queries),
+                    String.format("%.3f", approximateNanos / 1e6 / queries), candidates / queries,
+                    String.format("%.1f", 100.0 * matched / queries));
+        }
+    }
+
+    private UserLikesIndex userLikesIndex(List<Like> likes) {
+        var likeRepository = mock(LikeRepository.class);
+        when(likeRepository.getLikes()).thenReturn(likes);
+        var userLikes = new UserLikesIndex(likeRepository);
+        userLikes.load();
+        return userLikes;
+    }
+
+    /**
+     * Метод генерирует лайки пользователей, разбитых на группы с общими вкусами:
+     * каждый пользователь ставит лайки в основном фильмам из набора своей группы.
+     */
+    private List<Like> generateLikes(Random random, int users, int films, int groupSize, int likesPerUser) {
+        List<Like> likes = new ArrayList<>(users * likesPerUser);
+        int groups = films / groupSize;
+        for (int userId = 1; userId <= users; userId++) {
+            int firstGroupFilm = 1 + random.nextInt(groups) * groupSize;
+            for (int i = 0; i < likesPerUser; i++) {
+                int filmId = random.nextInt(10) < 8
+                        ? firstGroupFilm + random.nextInt(groupSize)
+                        : 1 + random.nextInt(films);
+                likes.add(new Like(userId, filmId));
+            }
+        }
+        return likes;
+    }
+}
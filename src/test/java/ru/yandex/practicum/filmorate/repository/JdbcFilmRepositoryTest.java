@@ -7,25 +7,50 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.entity.*;
+import ru.yandex.practicum.filmorate.entity.LikeOperationResult.Status;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exception.EntityValidateException;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FriendsIndex;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.index.UserLikesIndex;
 import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.EventWriter;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
-
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DirectorSortParams.year;
 import static ru.yandex.practicum.filmorate.config.FilmorateApplicationSettings.DirectorSortParams.likes;
 
-@JdbcTest
+@JdbcTest(properties = "filmorate.events.write-mode=SYNC")
 @Import({JdbcFilmRepository.class, FilmService.class, UserService.class, JdbcLikeRepository.class,
         JdbcUtilRepository.class, JdbcUserRepository.class, JdbcFilmRepository.class, JdbcFriendRepository.class,
-        DirectorService.class, JdbcDirectorRepository.class, JdbcEventRepository.class})
+        DirectorService.class, JdbcDirectorRepository.class, JdbcEventRepository.class, PopularFilmsIndex.class,
+        FilmSearchIndex.class, ReferenceDataCache.class, FilmCache.class, UserLikesIndex.class, FriendsIndex.class,
+        RecommendationCache.class, MinHashIndex.class, EventWriter.class})
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DisplayName("Набор тестов для JdbcFilmRepository")
@@ -34,6 +59,11 @@ class JdbcFilmRepositoryTest {
     private final FilmService filmService;
     private final UserService userService;
     private final DirectorService directorService;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final JdbcLikeRepository likeRepository;
+    private final RecommendationCache recommendationCache;
+    private final NamedParameterJdbcOperations jdbc;
+    private final DataSource source;
     private Optional<Film> film = Optional.empty();
     private int id;
 
@@ -123,6 +153,43 @@ class JdbcFilmRepositoryTest {
         assertThat(top.getLast().getId() == film2.getId()).isTrue();
     }
 
+    @Test
+    @DisplayName("Сценарий проверки, что 'топ' из индекса популярности совпадает с 'топом' из БД")
+    void getPopularFilmFromIndexMatchesDb() {
+        var user = userService.createUser(new User(
+                0,
+                "user1",
+                "name1",
+                "user1@uandex.ru",
+                LocalDate.of(2000, 1, 1)));
+        var oldFilm = testFilm();
+        oldFilm.setReleaseDate(LocalDate.of(1999, 1, 1));
+        oldFilm.setGenres(Collections.singletonList(new Genre(2, null)));
+        oldFilm = filmService.createfilm(oldFilm);
+        var newFilm = filmService.createfilm(testFilm());
+        filmService.addLike(oldFilm.getId(), user.getId());
+        filmService.addLike(newFilm.getId(), user.getId());
+        filmService.deleteLike(newFilm.getId(), user.getId());
+        int year = LocalDate.now().getYear();
+        for (Integer topSize : new Integer[]{null, 1, 3}) {
+            for (Integer genreId : new Integer[]{null, 1, 2}) {
+                for (Integer releaseYear : new Integer[]{null, 1999, year, 1900}) {
+                    assertThat(filmService.getTopFilms(topSize, genreId, releaseYear))
+                            .extracting(Film::getId)
+                            .containsExactlyElementsOf(filmRepository.getPopularFilm(topSize, genreId, releaseYear)
+                                    .stream().map(Film::getId).toList());
+                }
+            }
+        }
+        oldFilm.setGenres(Collections.singletonList(new Genre(1, null)));
+        filmService.updateFilm(oldFilm);
+        assertThat(filmService.getTopFilms(1, 1, null).getFirst().getId()).isEqualTo(oldFilm.getId());
+        filmService.deleteFilm(oldFilm.getId());
+        assertThat(filmService.getTopFilms(null, null, null))
+                .extracting(Film::getId)
+                .doesNotContain(oldFilm.getId());
+    }
+
     @Test
     @DisplayName("Сценарий получения 'топа' популярных фильмов режиссера по лайкам или годам")
     void findFilmsForDirectorByConditions() {
@@ -166,6 +233,86 @@ class JdbcFilmRepositoryTest {
     }
 
 
+    @Test
+    @DisplayName("Сценарий проверки, что поиск через индекс находит те же фильмы, что и поиск в БД")
+    void searchFilmsByIndexMatchesDb() {
+        var user = userService.createUser(new User(
+                0,
+                "user1",
+                "name1",
+                "user1@uandex.ru",
+                LocalDate.of(2000, 1, 1)));
+        var director = directorService.createDirector(new Director(0, "Квентин Тарантино"));
+        var withDirector = testFilm();
+        withDirector.setName("Криминальное чтиво");
+        withDirector.setDirectors(Collections.singleton(director));
+        withDirector = filmService.createfilm(withDirector);
+        var withTitle = testFilm();
+        withTitle.setName("Тарантул");
+        withTitle = filmService.createfilm(withTitle);
+        filmService.addLike(withTitle.getId(), user.getId());
+        var withPercent = testFilm();
+        withPercent.setName("100% любовь");
+        withPercent = filmService.createfilm(withPercent);
+        for (String query : new String[]{"тарант", "ТАРАНТ", "чтиво", "ино", "нет такого", "%", "_", "\\", "0%",
+                "% л", "0_"}) {
+            for (String by : new String[]{"title", "director", "title,director", "director,title"}) {
+                var title = by.contains("title") ? query : "";
+                var directorName = by.contains("director") ? query : "";
+                assertThat(filmService.getFilmsByTitleAndDirector(query, by, null, 0))
+                        .extracting(Film::getId)
+                        .containsExactlyElementsOf(filmRepository.search(title, directorName, Integer.MAX_VALUE, 0)
+                                .stream().map(Film::getId).toList());
+            }
+        }
+        assertThat(filmService.getFilmsByTitleAndDirector("тарант", "title,director", null, 0))
+                .extracting(Film::getId)
+                .containsExactly(withTitle.getId(), withDirector.getId());
+        assertThat(filmService.getFilmsByTitleAndDirector("%", "title", null, 0))
+                .extracting(Film::getId)
+                .containsExactly(withPercent.getId());
+        assertThat(filmService.getFilmsByTitleAndDirector("_", "title,director", null, 0)).isEmpty();
+        assertThat(filmService.getFilmsByTitleAndDirector("тарант", "title,director", 1, 1))
+                .extracting(Film::getId)
+                .containsExactly(withDirector.getId());
+        assertThat(filmRepository.search("тарант", "тарант", 1, 1))
+                .extracting(Film::getId)
+                .containsExactly(withDirector.getId());
+        assertThat(filmRepository.search("", "тарант", 10, 0))
+                .singleElement()
+                .satisfies(found -> {
+                    assertThat(found.getDirectors()).containsExactly(director);
+                    assertThat(found.getGenres()).extracting(Genre::getId).containsExactly(1);
+                    assertThat(found.getMpa().getName()).isNotBlank();
+                });
+        directorService.updateDirector(new Director(director.getId(), "Гай Ричи"));
+        assertThat(filmService.getFilmsByTitleAndDirector("ричи", "director", null, 0))
+                .extracting(Film::getId)
+                .containsExactly(withDirector.getId());
+        directorService.deleteDirector(director.getId());
+        assertThat(filmService.getFilmsByTitleAndDirector("ричи", "director", null, 0)).isEmpty();
+        filmService.deleteFilm(withTitle.getId());
+        assertThat(filmService.getFilmsByTitleAndDirector("тарант", "title", null, 0)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что фильм с неизвестными жанром, MPA или режиссером не создается")
+    void createFilmWithUnknownReferences() {
+        var unknownGenre = testFilm();
+        unknownGenre.setGenres(Collections.singletonList(new Genre(100, null)));
+        assertThrows(EntityValidateException.class, () -> filmService.createfilm(unknownGenre));
+        var unknownMpa = testFilm();
+        unknownMpa.setMpa(new Mpa(100, null));
+        assertThrows(EntityValidateException.class, () -> filmService.createfilm(unknownMpa));
+        var unknownDirector = testFilm();
+        unknownDirector.setDirectors(Collections.singleton(new Director(100_000, null)));
+        assertThrows(EntityValidateException.class, () -> filmService.createfilm(unknownDirector));
+
+        var created = filmService.createfilm(testFilm());
+        assertThat(created.getGenres()).containsExactly(new Genre(1, "Комедия"));
+        assertThat(created.getMpa().getName()).isNotBlank();
+    }
+
     @Test
     @DisplayName("Сценарий проверки удаления фильма")
     void deleteFilm() {
@@ -182,6 +329,359 @@ class JdbcFilmRepositoryTest {
         assertThat(filmRepository.getFilm(id)).isNotPresent();
     }
 
+    @Test
+    @DisplayName("Сценарий проверки, что число запросов к БД при чтении фильмов не зависит от их количества")
+    void getFilmsWithConstantQueryCount() {
+        var queryCounter = new AtomicInteger();
+        var repository = new JdbcFilmRepository(countingJdbc(queryCounter), source);
+        var director = directorService.createDirector(new Director(0, "director"));
+        var film = testFilm();
+        film.setDirectors(Collections.singleton(director));
+        id = repository.createFilm(film).orElseThrow().getId();
+
+        queryCounter.set(0);
+        var oneFilm = repository.getFilmsByIds(Collections.singletonList(id));
+        int queriesForOneFilm = queryCounter.get();
+        assertThat(oneFilm).hasSize(1);
+        assertThat(oneFilm.getFirst().getGenres()).containsExactly(new Genre(1, "Комедия"));
+        assertThat(oneFilm.getFirst().getDirectors()).containsExactly(director);
+
+        for (int i = 0; i < 30; i++) {
+            repository.createFilm(testFilm());
+        }
+        queryCounter.set(0);
+        var allFilms = repository.getFilms();
+        assertThat(allFilms.size()).isGreaterThan(30);
+        assertThat(queryCounter.get()).isEqualTo(queriesForOneFilm);
+        assertThat(allFilms)
+                .filteredOn(f -> f.getId() >= id)
+                .hasSize(31)
+                .allSatisfy(f -> assertThat(f.getGenres()).hasSize(1));
+
+        queryCounter.set(0);
+        repository.getPopularFilm(null);
+        assertThat(queryCounter.get()).isEqualTo(queriesForOneFilm);
+
+        for (String title : new String[]{"", "fil"}) {
+            for (String directorName : new String[]{"", "dir"}) {
+                queryCounter.set(0);
+                var found = repository.search(title, directorName, Integer.MAX_VALUE, 0);
+                if (!title.isEmpty() || !directorName.isEmpty()) {
+                    assertThat(found).isNotEmpty().allSatisfy(f -> assertThat(f.getGenres()).hasSize(1));
+                }
+                assertThat(queryCounter.get()).isLessThanOrEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что при обновлении фильма изменяются только изменившиеся жанры и режиссеры")
+    void updateFilmLinksByDiff() {
+        var queryCounter = new AtomicInteger();
+        var repository = new JdbcFilmRepository(countingJdbc(queryCounter), source);
+        var firstDirector = directorService.createDirector(new Director(0, "first"));
+        var secondDirector = directorService.createDirector(new Director(0, "second"));
+        var film = testFilm();
+        film.getDirectors().add(firstDirector);
+        id = repository.createFilm(film).orElseThrow().getId();
+
+        queryCounter.set(0);
+        repository.updateFilm(film);
+        assertThat(queryCounter.get()).isEqualTo(3);
+
+        film.setGenres(List.of(new Genre(2, null), new Genre(3, null)));
+        film.getDirectors().add(secondDirector);
+        queryCounter.set(0);
+        repository.updateFilm(film);
+        assertThat(queryCounter.get()).isEqualTo(6);
+        assertThat(repository.getFilm(id)).hasValueSatisfying(updated -> {
+            assertThat(updated.getGenres()).extracting(Genre::getId).containsExactly(2, 3);
+            assertThat(updated.getDirectors()).containsExactlyInAnyOrder(firstDirector, secondDirector);
+        });
+
+        film.setGenres(List.of());
+        film.getDirectors().remove(firstDirector);
+        repository.updateFilm(film);
+        assertThat(repository.getFilm(id)).hasValueSatisfying(updated -> {
+            assertThat(updated.getGenres()).isEmpty();
+            assertThat(updated.getDirectors()).containsExactly(secondDirector);
+        });
+    }
+
+    @Test
+    @DisplayName("Сценарий проверок кэша фильмов: попадания, вытеснение, сброс при изменениях")
+    void getFilmThroughCache() {
+        var user = userService.createUser(new User(
+                0,
+                "user1",
+                "name1",
+                "user1@uandex.ru",
+                LocalDate.of(2000, 1, 1)));
+        var director = directorService.createDirector(new Director(0, "director"));
+        var film = testFilm();
+        film.getDirectors().add(director);
+        id = filmService.createfilm(film).getId();
+
+        var stats = filmService.getFilmCacheStats();
+        assertThat(filmService.getFilm(id).getName()).isEqualTo("film");
+        filmService.getFilm(id).setName("changedOutsideCache");
+        assertThat(filmService.getFilm(id).getName()).isEqualTo("film");
+        assertThat(filmService.getFilmCacheStats().misses()).isEqualTo(stats.misses() + 1);
+        assertThat(filmService.getFilmCacheStats().hits()).isEqualTo(stats.hits() + 2);
+
+        filmService.addLike(id, user.getId());
+        assertThat(filmService.getFilm(id).getRate()).isEqualTo(1);
+
+        film.setName("updatedName");
+        filmService.updateFilm(film);
+        assertThat(filmService.getFilm(id).getName()).isEqualTo("updatedName");
+
+        directorService.updateDirector(new Director(director.getId(), "renamed"));
+        assertThat(filmService.getFilm(id).getDirectors())
+                .extracting(Director::getName)
+                .containsExactly("renamed");
+
+        filmService.deleteFilm(id);
+        assertThrows(EntityNotFoundException.class, () -> filmService.getFilm(id));
+
+        var smallCache = new FilmCache(filmRepository, popularFilmsIndex, 2);
+        int first = filmRepository.createFilm(testFilm()).orElseThrow().getId();
+        int second = filmRepository.createFilm(testFilm()).orElseThrow().getId();
+        int third = filmRepository.createFilm(testFilm()).orElseThrow().getId();
+        smallCache.getFilm(first);
+        smallCache.getFilm(second);
+        smallCache.getFilm(first);
+        smallCache.getFilm(third);
+        smallCache.getFilm(first);
+        assertThat(smallCache.getStats()).isEqualTo(new FilmCache.Stats(2, 2, 2, 3, 1));
+        smallCache.getFilm(second);
+        assertThat(smallCache.getStats().misses()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Сценарий проверок пакетной постановки и отмены лайков")
+    void applyLikesInBatch() {
+        int user1 = userService.createUser(new User(
+                0, "user1", "name1", "user1@uandex.ru", LocalDate.of(2000, 1, 1))).getId();
+        int user2 = userService.createUser(new User(
+                0, "user2", "name2", "user2@uandex.ru", LocalDate.of(2000, 1, 2))).getId();
+        int film1 = filmService.createfilm(testFilm()).getId();
+        int film2 = filmService.createfilm(testFilm()).getId();
+        var operations = List.of(
+                new LikeOperation(film1, user1, LikeOperation.Op.ADD),
+                new LikeOperation(film1, user1, LikeOperation.Op.ADD),
+                new LikeOperation(film2, user1, LikeOperation.Op.ADD),
+                new LikeOperation(film2, user1, LikeOperation.Op.REMOVE),
+                new LikeOperation(film2, user2, LikeOperation.Op.REMOVE),
+                new LikeOperation(Integer.MAX_VALUE, user1, LikeOperation.Op.ADD),
+                new LikeOperation(film1, -1, LikeOperation.Op.ADD),
+                new LikeOperation(film2, user2, null),
+                new LikeOperation(film2, user2, LikeOperation.Op.ADD));
+
+        var results = filmService.applyLikes(operations);
+
+        assertThat(results).extracting(LikeOperationResult::status).containsExactly(
+                Status.APPLIED, Status.UNCHANGED, Status.APPLIED, Status.APPLIED, Status.NOT_FOUND,
+                Status.NOT_FOUND, Status.INVALID, Status.INVALID, Status.APPLIED);
+        assertThat(filmService.getFilm(film1).getRate()).isEqualTo(1);
+        assertThat(filmService.getFilm(film2).getRate()).isEqualTo(1);
+        assertThat(filmService.rebuildLikeCounters()).isZero();
+        assertThat(jdbc.queryForObject(
+                "select count(*) from EVENTS where USER_ID = :userId and EVENT_TYPE_NAME = 'LIKE'",
+                Map.of("userId", user1), Integer.class)).isEqualTo(4);
+        assertThat(filmService.applyLikes(List.of(new LikeOperation(film1, user1, LikeOperation.Op.REMOVE))))
+                .extracting(LikeOperationResult::status)
+                .containsExactly(Status.APPLIED);
+        assertThat(filmService.getTopFilms(null, null, null))
+                .extracting(Film::getId)
+                .containsExactlyElementsOf(filmRepository.getPopularFilm(null, null, null)
+                        .stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что общие фильмы из индекса лайков совпадают с общими фильмами из БД")
+    void getCommonFilmsFromIndexMatchesDb() {
+        var random = new Random(42);
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            userIds.add(userService.createUser(new User(0, "common" + i, "name" + i, "common" + i + "@uandex.ru",
+                    LocalDate.of(2000, 1, 1))).getId());
+        }
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            filmIds.add(filmService.createfilm(testFilm()).getId());
+        }
+        for (int userId : userIds) {
+            for (int filmId : filmIds) {
+                if (random.nextInt(10) < 4) {
+                    filmService.addLike(filmId, userId);
+                }
+            }
+        }
+        List<LikeOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            operations.add(new LikeOperation(filmIds.get(random.nextInt(filmIds.size())),
+                    userIds.get(random.nextInt(userIds.size())),
+                    random.nextBoolean() ? LikeOperation.Op.ADD : LikeOperation.Op.REMOVE));
+        }
+        filmService.applyLikes(operations);
+        filmService.deleteFilm(filmIds.getFirst());
+        userService.deleteUserById(userIds.getLast());
+        userIds.add(Integer.MAX_VALUE);
+
+        for (int userId : userIds) {
+            for (int friendId : userIds) {
+                assertThat(filmService.getCommonFilms(userId, friendId))
+                        .extracting(Film::getId)
+                        .containsExactlyElementsOf(filmRepository.getCommonFilms(userId, friendId)
+                                .stream().map(Film::getId).toList());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что рекомендации из индекса лайков совпадают с полным перебором пользователей")
+    void getRecommendationsFromIndexMatchesFullScan() {
+        var random = new Random(11);
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            userIds.add(userService.createUser(new User(0, "recommend" + i, "name" + i, "recommend" + i + "@uandex.ru",
+                    LocalDate.of(2000, 1, 1))).getId());
+        }
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            filmIds.add(filmService.createfilm(testFilm()).getId());
+        }
+        for (int userId : userIds.subList(1, userIds.size())) {
+            for (int filmId : filmIds) {
+                if (random.nextInt(10) < 3) {
+                    filmService.addLike(filmId, userId);
+                }
+            }
+        }
+        filmService.deleteLike(filmIds.get(1), userIds.get(2));
+        filmService.addLike(filmIds.get(1), userIds.get(2));
+        filmService.deleteFilm(filmIds.get(2));
+        int deletedUserId = userIds.removeLast();
+        userService.deleteUserById(deletedUserId);
+
+        recommendationCache.refreshStale();
+        Map<Integer, Set<Integer>> likedFilms = new HashMap<>();
+        likeRepository.getLikes().forEach(like -> likedFilms
+                .computeIfAbsent(like.getUserId(), id -> new TreeSet<>()).add(like.getFilmId()));
+        for (int userId : userIds) {
+            assertThat(userService.getRecommendations(userId))
+                    .extracting(Film::getId)
+                    .containsExactlyElementsOf(recommendByFullScan(userId, likedFilms));
+        }
+        assertThrows(EntityNotFoundException.class, () -> userService.getRecommendations(deletedUserId));
+        assertThrows(EntityNotFoundException.class, () -> userService.getRecommendations(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Сценарий проверок хранилища рекомендаций: устаревшие рекомендации отдаются до фонового пересчета")
+    void getStoredRecommendations() {
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            userIds.add(userService.createUser(new User(0, "stored" + i, "name" + i, "stored" + i + "@uandex.ru",
+                    LocalDate.of(2000, 1, 1))).getId());
+        }
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            filmIds.add(filmService.createfilm(testFilm()).getId());
+        }
+        int first = userIds.get(0);
+        int second = userIds.get(1);
+        int third = userIds.get(2);
+        filmService.addLike(filmIds.get(0), first);
+        filmService.addLike(filmIds.get(0), second);
+        filmService.addLike(filmIds.get(1), second);
+        filmService.addLike(filmIds.get(2), third);
+        recommendationCache.refreshStale();
+
+        var computed = userService.getStoredRecommendations(first);
+        assertThat(computed.films()).extracting(Film::getId).containsExactly(filmIds.get(1));
+        assertThat(userService.getStoredRecommendations(third).films()).isEmpty();
+
+        filmService.addLike(filmIds.get(3), second);
+        filmService.addLike(filmIds.get(2), first);
+        var stale = userService.getStoredRecommendations(first);
+        assertThat(stale.computedAt()).isEqualTo(computed.computedAt());
+        assertThat(stale.films()).extracting(Film::getId).containsExactly(filmIds.get(1));
+
+        assertThat(recommendationCache.refreshStale()).isGreaterThanOrEqualTo(3);
+        var refreshed = userService.getStoredRecommendations(first);
+        assertThat(refreshed.computedAt()).isAfterOrEqualTo(computed.computedAt());
+        assertThat(refreshed.films()).isEmpty();
+        assertThat(userService.getStoredRecommendations(third).films())
+                .extracting(Film::getId)
+                .containsExactly(filmIds.get(0));
+        assertThat(recommendationCache.refreshStale()).isZero();
+
+        userService.deleteUserById(third);
+        recommendationCache.refreshStale();
+        assertThat(userService.getStoredRecommendations(first).films())
+                .extracting(Film::getId)
+                .containsExactly(filmIds.get(1), filmIds.get(3));
+
+        int stored = recommendationCache.size();
+        int withoutLikes = userService.createUser(new User(0, "storedNoLikes", "name", "storedNoLikes@uandex.ru",
+                LocalDate.of(2000, 1, 1))).getId();
+        assertThat(userService.getStoredRecommendations(withoutLikes).films()).isEmpty();
+        assertThrows(EntityNotFoundException.class, () -> userService.getStoredRecommendations(withoutLikes + 1000));
+        assertThat(recommendationCache.size()).isEqualTo(stored);
+        int unrelatedFilm = filmService.createfilm(testFilm()).getId();
+        filmService.addLike(unrelatedFilm, withoutLikes);
+        recommendationCache.refreshStale();
+        filmService.deleteFilm(filmIds.get(3));
+        assertThat(recommendationCache.refreshStale()).isEqualTo(2);
+        assertThat(userService.getStoredRecommendations(first).films())
+                .extracting(Film::getId)
+                .containsExactly(filmIds.get(1));
+    }
+
+    /**
+     * Эталонный расчет рекомендаций полным перебором: фильмы пользователей с наибольшей долей
+     * общих с исходным пользователем фильмов среди своих лайков, которых нет у исходного пользователя.
+     */
+    private List<Integer> recommendByFullScan(int userId, Map<Integer, Set<Integer>> likedFilms) {
+        var userFilms = likedFilms.getOrDefault(userId, Set.of());
+        double maxShare = 0;
+        Map<Integer, Double> shares = new HashMap<>();
+        for (var entry : likedFilms.entrySet()) {
+            if (entry.getKey() == userId) {
+                continue;
+            }
+            long common = entry.getValue().stream().filter(userFilms::contains).count();
+            double share = (double) common / entry.getValue().size();
+            shares.put(entry.getKey(), share);
+            maxShare = Math.max(maxShare, share);
+        }
+        Set<Integer> recommended = new TreeSet<>();
+        for (var entry : shares.entrySet()) {
+            if (maxShare > 0 && entry.getValue() == maxShare) {
+                likedFilms.get(entry.getKey()).stream()
+                        .filter(filmId -> !userFilms.contains(filmId))
+                        .forEach(recommended::add);
+            }
+        }
+        return List.copyOf(recommended);
+    }
+
+    private NamedParameterJdbcOperations countingJdbc(AtomicInteger queryCounter) {
+        return (NamedParameterJdbcOperations) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{NamedParameterJdbcOperations.class},
+                (proxy, method, args) -> {
+                    queryCounter.incrementAndGet();
+                    try {
+                        return method.invoke(jdbc, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
     private Film testFilm() {
         return new Film(
                 0,
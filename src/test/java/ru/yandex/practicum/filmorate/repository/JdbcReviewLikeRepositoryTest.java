@@ -10,6 +10,8 @@ import org.springframework.context.annotation.Import;
 import ru.yandex.practicum.filmorate.entity.Review;
 import ru.yandex.practicum.filmorate.repository.mappers.ReviewRowMapper;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -68,6 +70,41 @@ class JdbcReviewLikeRepositoryTest {
         assertEquals(0, resultReview.getUseful(), "лайк не удален");
     }
 
+    @Test
+    @DisplayName("Замена лайка дизлайком и повторная оценка отзыва")
+    void shouldChangeUsefulWhenLikeReplacedByDislike() {
+        Review review = reviewRepository.create(getTestReviewForFilmID1()).orElse(null);
+        assertNotNull(review);
+        reviewLikeRepository.addLike(review.getReviewId(), 1);
+        reviewLikeRepository.addLike(review.getReviewId(), 1);
+        reviewLikeRepository.addLike(review.getReviewId(), 2);
+        assertEquals(2, reviewRepository.getById(review.getReviewId()).orElseThrow().getUseful(),
+                "повторный лайк изменил полезность");
+        reviewLikeRepository.addDislike(review.getReviewId(), 1);
+        assertEquals(0, reviewRepository.getById(review.getReviewId()).orElseThrow().getUseful(),
+                "лайк не заменен дизлайком");
+        reviewLikeRepository.deleteLike(review.getReviewId(), 1);
+        assertEquals(0, reviewRepository.getById(review.getReviewId()).orElseThrow().getUseful(),
+                "удален лайк, которого нет");
+        reviewLikeRepository.addLike(review.getReviewId(), 1);
+        assertEquals(2, reviewRepository.getById(review.getReviewId()).orElseThrow().getUseful(),
+                "дизлайк не заменен лайком");
+    }
+
+    @Test
+    @DisplayName("Отзывы фильма упорядочены по полезности")
+    void shouldReturnReviewsOrderedByUseful() {
+        Review first = reviewRepository.create(getTestReviewForFilmID1()).orElseThrow();
+        Review second = reviewRepository.create(getTestReviewForFilmID1()).orElseThrow();
+        reviewLikeRepository.addDislike(first.getReviewId(), 1);
+        reviewLikeRepository.addLike(second.getReviewId(), 1);
+        assertEquals(List.of(second.getReviewId(), first.getReviewId()),
+                reviewRepository.get(1, 10).stream().map(Review::getReviewId).toList());
+        assertEquals(List.of(second.getReviewId(), first.getReviewId()),
+                reviewRepository.get(null, 10).stream().map(Review::getReviewId).toList());
+        assertTrue(reviewRepository.get(2, 10).isEmpty());
+    }
+
     private static Review getTestReviewForFilmID1() {
         Review review = new Review();
         review.setContent("Положительный отзыв");
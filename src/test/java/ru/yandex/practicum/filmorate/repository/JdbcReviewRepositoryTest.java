@@ -8,9 +8,12 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import ru.yandex.practicum.filmorate.entity.Review;
+import ru.yandex.practicum.filmorate.entity.ReviewCursor;
 import ru.yandex.practicum.filmorate.repository.mappers.ReviewRowMapper;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,6 +49,30 @@ class JdbcReviewRepositoryTest {
         assertEquals(3, resultReviews.size(), "Неверное общее количество отзывов");
     }
 
+    @Test
+    @DisplayName("Постраничное получение отзывов по позиции последнего отзыва страницы")
+    void shouldReturnReviewPagesAfterCursor() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(reviewRepository.create(getTestReviewForFilmID2()).orElseThrow().getReviewId());
+        }
+        reviewRepository.create(getTestReviewForFilmID1());
+        List<Integer> pages = new ArrayList<>();
+        ReviewCursor after = null;
+        Collection<Review> page;
+        do {
+            page = reviewRepository.get(2, after, 2);
+            page.forEach(review -> pages.add(review.getReviewId()));
+            after = page.isEmpty() ? null : ReviewCursor.of(List.copyOf(page).getLast());
+        } while (after != null);
+        assertEquals(expected, pages, "Страницы отзывов фильма не совпадают со всеми отзывами");
+        assertEquals(6, reviewRepository.get(null, new ReviewCursor(1, 0), 10).size(),
+                "Неверное количество отзывов после позиции");
+        assertEquals(1, reviewRepository.get(null, ReviewCursor.of(
+                reviewRepository.getById(expected.getLast()).orElseThrow()), 10).size(),
+                "Неверное количество отзывов после последнего отзыва фильма");
+    }
+
     @Test
     @DisplayName("Получение отзыва по идентификатору")
     void shouldReturnReviewById() {
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.entity.FeedCursor;
+import ru.yandex.practicum.filmorate.entity.ReviewCursor;
+import ru.yandex.practicum.filmorate.exception.EntityValidateException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Набор тестов для CursorParser")
+class CursorParserTest {
+
+    @Test
+    @DisplayName("Сценарий проверки разбора позиций ленты событий и списка отзывов")
+    void parseCursors() {
+        assertThat(parseFeedCursor(null)).isNull();
+        assertThat(parseFeedCursor("1700000000000:5")).isEqualTo(new FeedCursor(1700000000000L, 5));
+        assertThat(parseReviewCursor("-3:7")).isEqualTo(new ReviewCursor(-3, 7));
+        assertThat(parseReviewCursor(new ReviewCursor(2, 4).toString())).isEqualTo(new ReviewCursor(2, 4));
+
+        for (String cursor : new String[]{"", "5", ":5", "5:", "a:5", "5:b", "1:2:3", "1:3000000000"}) {
+            assertThrows(EntityValidateException.class, () -> parseFeedCursor(cursor), cursor);
+        }
+        assertThrows(EntityValidateException.class, () -> parseReviewCursor("3000000000:1"));
+    }
+
+    private FeedCursor parseFeedCursor(String cursor) {
+        return CursorParser.parse(cursor, "test", "ленте событий", "время:ID",
+                (timestamp, eventId) -> new FeedCursor(timestamp, Math.toIntExact(eventId)));
+    }
+
+    private ReviewCursor parseReviewCursor(String cursor) {
+        return CursorParser.parse(cursor, "test", "списке отзывов", "полезность:ID",
+                (useful, reviewId) -> new ReviewCursor(Math.toIntExact(useful), Math.toIntExact(reviewId)));
+    }
+}
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.entity.Event;
+import ru.yandex.practicum.filmorate.entity.EventOperation;
+import ru.yandex.practicum.filmorate.entity.EventType;
+import ru.yandex.practicum.filmorate.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Набор тестов для EventWriter")
+class EventWriterTest {
+
+    @Test
+    @DisplayName("Сценарий проверки записи событий пакетами по размеру пакета и по времени")
+    void writeEventsInBatches() {
+        var repository = mock(EventRepository.class);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> batchSizes.add(invocation.<List<Event>>getArgument(0).size()))
+                .when(repository).createAll(anyList());
+        var writer = new EventWriter(repository, EventWriter.Mode.ASYNC, 100, 3, 50);
+        writer.start();
+
+        writer.writeAll(events(1, 7));
+        verify(repository, timeout(1000).times(3)).createAll(anyList());
+        writer.stop();
+
+        assertThat(batchSizes).containsExactly(3, 3, 1);
+        var stats = writer.getStats();
+        assertThat(stats.written()).isEqualTo(7);
+        assertThat(stats.flushes()).isEqualTo(3);
+        assertThat(stats.queueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки записи в потоке запроса при заполненной очереди и дозаписи очереди при остановке")
+    void writeEventsWhenQueueIsFull() throws InterruptedException {
+        var repository = mock(EventRepository.class);
+        var flushStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        String writerThread = "event-writer";
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals(writerThread)) {
+                flushStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(repository).createAll(anyList());
+        var writer = new EventWriter(repository, EventWriter.Mode.ASYNC, 2, 1, 20);
+        writer.start();
+
+        writer.write(events(1, 1).getFirst());
+        assertThat(flushStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        writer.writeAll(events(2, 4));
+        assertThat(writer.getStats().queueDepth()).isEqualTo(2);
+        assertThat(writer.getStats().writtenByCaller()).isEqualTo(1);
+        verify(repository).createAll(argThat(batch -> batch.size() == 1 && batch.getFirst().getEntityId() == 4));
+
+        release.countDown();
+        writer.stop();
+        assertThat(writer.getStats().written()).isEqualTo(4);
+        assertThat(writer.getStats().queueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что при ошибке записи пакета остальные события пакета записываются")
+    void writeEventsOneByOneWhenBatchFails() {
+        var repository = mock(EventRepository.class);
+        var events = events(1, 3);
+        doThrow(new DataIntegrityViolationException("batch")).when(repository).createAll(anyList());
+        doThrow(new DataIntegrityViolationException("event")).when(repository).create(events.get(1));
+        var writer = new EventWriter(repository, EventWriter.Mode.ASYNC, 10, 10, 20);
+        writer.start();
+
+        writer.writeAll(events);
+        writer.stop();
+
+        verify(repository).create(events.get(0));
+        verify(repository).create(events.get(2));
+        assertThat(writer.getStats().written()).isEqualTo(2);
+        assertThat(writer.getStats().failed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки синхронной записи событий")
+    void writeEventsSynchronously() {
+        var repository = mock(EventRepository.class);
+        var writer = new EventWriter(repository, EventWriter.Mode.SYNC, 10, 10, 20);
+        writer.start();
+        var events = events(1, 2);
+
+        writer.writeAll(events);
+
+        verify(repository).createAll(events);
+        assertThat(writer.getStats().written()).isEqualTo(2);
+        writer.stop();
+    }
+
+    private List<Event> events(int fromEntityId, int toEntityId) {
+        List<Event> events = new ArrayList<>();
+        for (int entityId = fromEntityId; entityId <= toEntityId; entityId++) {
+            events.add(new Event(entityId, 1, EventType.LIKE.toString(), EventOperation.ADD.toString(), entityId));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.entity.Director;
+import ru.yandex.practicum.filmorate.entity.Film;
+import ru.yandex.practicum.filmorate.entity.FilmImportReport.LineError;
+import ru.yandex.practicum.filmorate.entity.Genre;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.index.UserLikesIndex;
+import ru.yandex.practicum.filmorate.repository.JdbcDirectorRepository;
+import ru.yandex.practicum.filmorate.repository.JdbcEventRepository;
+import ru.yandex.practicum.filmorate.repository.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.repository.JdbcLikeRepository;
+import ru.yandex.practicum.filmorate.repository.JdbcUtilRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest(properties = "filmorate.events.write-mode=SYNC")
+@Import({FilmImportService.class, FilmService.class, JdbcFilmRepository.class, JdbcLikeRepository.class,
+        JdbcEventRepository.class, JdbcDirectorRepository.class, JdbcUtilRepository.class, ReferenceDataCache.class,
+        PopularFilmsIndex.class, FilmSearchIndex.class, FilmCache.class, UserLikesIndex.class,
+        RecommendationCache.class, MinHashIndex.class, EventWriter.class, DirectorService.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Набор тестов для FilmImportService")
+class FilmImportServiceTest {
+    private final FilmImportService filmImportService;
+    private final FilmService filmService;
+    private final DirectorService directorService;
+
+    @Test
+    @DisplayName("Сценарий проверок пакетной загрузки фильмов из NDJSON")
+    void importFilmsFromNdjson() {
+        int directorId = directorService.createDirector(new Director(0, "director")).getId();
+        String input = """
+                {"name":"first","description":"d","releaseDate":"2000-01-01","duration":90,"mpa":{"id":2},\
+                "genres":[{"id":1},{"id":2}],"directors":[{"id":%d}]}
+
+                {"name":"","description":"d","releaseDate":"2000-01-01","duration":90,"mpa":{"id":1}}
+                {"name":"old","description":"d","releaseDate":"1800-01-01","duration":90,"mpa":{"id":1}}
+                {"name":"broken",
+                {"name":"unknownGenre","description":"d","releaseDate":"2000-01-01","duration":90,\
+                "mpa":{"id":1},"genres":[{"id":999}]}
+                {"name":"second","description":"d","releaseDate":"2001-01-01","duration":100,"mpa":{"id":1}}
+                {"name":"third","description":"d","releaseDate":"2002-01-01","duration":110}
+                """.formatted(directorId);
+
+        var report = filmImportService.importFilms(stream(input), BaseFilmImportService.Format.NDJSON, 2);
+
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.rejected()).isEqualTo(4);
+        assertThat(report.errors()).extracting(LineError::line).containsExactly(3, 4, 5, 6);
+        var imported = filmService.getFilmsByTitleAndDirector("first", "title", null, 0);
+        assertThat(imported).hasSize(1);
+        var first = filmService.getFilm(imported.getFirst().getId());
+        assertThat(first.getMpa().getName()).isEqualTo("PG");
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(first.getDirectors()).extracting(Director::getId).containsExactly(directorId);
+        assertThat(filmService.getFilmsByTitleAndDirector("dir", "director", null, 0))
+                .extracting(Film::getName)
+                .containsExactly("first");
+        assertThat(filmService.getTopFilms(null, null, 2002))
+                .extracting(Film::getName)
+                .containsExactly("third");
+    }
+
+    @Test
+    @DisplayName("Сценарий проверки, что непредвиденная ошибка в строке отклоняет только эту строку")
+    void importFilmsRejectsNullLines() {
+        String input = """
+                null
+                {"name":"nullGenre","description":"d","releaseDate":"2000-01-01","duration":90,"genres":[null]}
+                {"name":"nullDirector","description":"d","releaseDate":"2000-01-01","duration":90,"directors":[null]}
+                {"name":"afterNulls","description":"d","releaseDate":"2000-01-01","duration":90}
+                """;
+
+        var report = filmImportService.importFilms(stream(input), BaseFilmImportService.Format.NDJSON, 10);
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).extracting(LineError::line).containsExactly(1, 2, 3);
+        assertThat(report.errors()).extracting(LineError::message).noneMatch(message -> message.contains("Exception"));
+        assertThat(filmService.getFilmsByTitleAndDirector("afterNulls", "title", null, 0)).hasSize(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Сценарий проверки, что при ошибке записи пакета отклоняются только строки, которые не записались")
+    void importFilmsRetriesFailedChunkByRow() {
+        String input = """
+                {"name":"retryFirst","description":"d","releaseDate":"2003-01-01","duration":90}
+                {"name":"%s","description":"d","releaseDate":"2003-01-01","duration":90}
+                {"name":"retrySecond","description":"d","releaseDate":"2003-01-01","duration":90}
+                """.formatted("x".repeat(300));
+
+        var report = filmImportService.importFilms(stream(input), BaseFilmImportService.Format.NDJSON, 10);
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors()).extracting(LineError::line).containsExactly(2);
+        assertThat(filmService.getFilmsByTitleAndDirector("retry", "title", null, 0))
+                .extracting(Film::getName)
+                .containsExactlyInAnyOrder("retryFirst", "retrySecond");
+    }
+
+    @Test
+    @DisplayName("Сценарий проверок пакетной загрузки фильмов из CSV")
+    void importFilmsFromCsv() {
+        String input = """
+                name,description,releaseDate,duration,mpaId,genreIds,directorIds
+                csvFilm,"description, with \"\"quotes\"\"",2010-05-05,95,3,1;3,
+                short,row
+                badDate,d,2010-13-01,95,1,,
+                """;
+
+        var report = filmImportService.importFilms(stream(input), BaseFilmImportService.Format.CSV, 100);
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).extracting(LineError::line).containsExactly(3, 4);
+        var imported = filmService.getFilmsByTitleAndDirector("csvFilm", "title", null, 0);
+        assertThat(imported).hasSize(1);
+        assertThat(imported.getFirst().getDescription()).isEqualTo("description, with \"quotes\"");
+        assertThat(imported.getFirst().getGenres()).extracting(Genre::getId).containsExactly(1, 3);
+    }
+
+    private ByteArrayInputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}